@@ -0,0 +1,60 @@
+package io.manebot.command;
+
+import io.manebot.command.builtin.PingCommand;
+import io.manebot.command.executor.CommandExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DefaultCommandManager.getExecutor lookups for registered and unknown labels, and the abbreviation and
+ * suggestion lookups made when a label is not found.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandManagerBenchmark {
+    @Param({"16", "256"})
+    private int commands;
+
+    private DefaultCommandManager commandManager;
+    private String registeredLabel;
+    private String unknownLabel;
+
+    @Setup
+    public void setup() {
+        commandManager = new DefaultCommandManager();
+        for (int i = 0; i < commands; i ++) commandManager.registerExecutor("command" + i, new PingCommand());
+
+        registeredLabel = "command" + (commands / 2);
+        unknownLabel = "unknown";
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CommandExecutor hit() {
+        return commandManager.getExecutor(registeredLabel);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CommandExecutor miss() {
+        return commandManager.getExecutor(unknownLabel);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String abbreviation() {
+        return commandManager.getAbbreviatedLabel(unknownLabel);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<String> suggestions() {
+        return commandManager.getSuggestions(unknownLabel);
+    }
+}
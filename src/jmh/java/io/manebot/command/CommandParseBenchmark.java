@@ -0,0 +1,76 @@
+package io.manebot.command;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the label and argument parsing done by AbstractCommandShell.handleCommand for every command message,
+ * against the split/replace parser it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandParseBenchmark {
+    @Param({"short", "long", "whitespace", "multiline"})
+    private String input;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder;
+
+        switch (input) {
+            case "short":
+                message = "ping";
+                break;
+            case "long":
+                builder = new StringBuilder("Search");
+                for (int i = 0; i < 64; i ++) builder.append(" argument").append(i);
+                message = builder.toString();
+                break;
+            case "whitespace":
+                // Runs of tabs were collapsed one pair per pass of the string.
+                builder = new StringBuilder("user info");
+                for (int i = 0; i < 4096; i ++) builder.append('\t');
+                message = builder.append("Manebot").toString();
+                break;
+            case "multiline":
+                // Every line was split out, even though only the first is used.
+                builder = new StringBuilder("user info Manebot");
+                for (int i = 0; i < 1024; i ++) builder.append("\nline ").append(i);
+                message = builder.toString();
+                break;
+            default:
+                throw new IllegalArgumentException(input);
+        }
+    }
+
+    @Benchmark
+    public ParsedCommand parse() {
+        return ParsedCommand.parse(message);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        // The previous AbstractCommandShell.handleCommand parsing, verbatim.
+        String message = this.message.split("\n")[0].trim();
+
+        message = message.replace("\t", "\0");
+        while (message.contains("\0\0")) message = message.replace("\0\0", "\0");
+
+        String[] labelAndArguments = message.split("[ ]", 2);
+        String label = labelAndArguments[0];
+        String[] arguments = labelAndArguments.length > 1 ? labelAndArguments[1].split("[ ]") : new String[0];
+
+        label = label.toLowerCase();
+
+        blackhole.consume(label);
+        blackhole.consume(arguments);
+    }
+}
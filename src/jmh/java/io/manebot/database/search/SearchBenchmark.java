@@ -0,0 +1,72 @@
+package io.manebot.database.search;
+
+import io.manebot.database.Database;
+import io.manebot.database.DatabaseManager;
+import io.manebot.database.HibernateManager;
+import io.manebot.database.search.handler.SearchHandlerPropertyEquals;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DefaultSearchHandler.search against an in-memory H2 database, using the entity from SearchTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    @Param({"1000"})
+    private int rows;
+
+    private SearchHandler<SearchTest.TestTable> handler;
+    private Search emptySearch;
+    private Search argumentSearch;
+
+    @Setup
+    public void setup() throws SQLException {
+        Properties properties = new Properties();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.connection.url", "jdbc:h2:mem:SearchBenchmark;DB_CLOSE_DELAY=-1");
+
+        DatabaseManager databaseManager = new HibernateManager(null, properties);
+        Database database =
+                databaseManager.defineDatabase("benchmark", builder -> builder.registerEntity(SearchTest.TestTable.class));
+
+        database.executeTransaction(em -> {
+            for (int i = 0; i < rows; i ++) {
+                SearchTest.TestTable row = new SearchTest.TestTable();
+                row.setSearchable(i % 2 == 0);
+                row.setName("Row " + i);
+                em.persist(row);
+            }
+
+            return null;
+        });
+
+        handler = database.createSearchHandler(SearchTest.TestTable.class)
+                .argument("constant", new SearchHandlerPropertyEquals("constant2"))
+                .sort("name", "name")
+                .always(clause -> clause.addPredicate(SearchOperator.MERGE, clause.getCriteriaBuilder().equal(
+                        clause.getRoot().get("searchable"),
+                        true
+                ))).build();
+
+        emptySearch = Search.parse("");
+        argumentSearch = Search.parse("constant:Constant");
+    }
+
+    @Benchmark
+    public SearchResult<SearchTest.TestTable> search() throws SQLException {
+        return handler.search(emptySearch, 10);
+    }
+
+    @Benchmark
+    public SearchResult<SearchTest.TestTable> searchArgument() throws SQLException {
+        return handler.search(argumentSearch, 10);
+    }
+}
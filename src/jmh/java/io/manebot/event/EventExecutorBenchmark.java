@@ -0,0 +1,69 @@
+package io.manebot.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-event cost of the method handle invoker used by DefaultEventExecutor against the reflective
+ * Method.invoke path it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventExecutorBenchmark {
+    private BenchmarkListener listener;
+    private BenchmarkEvent event;
+
+    private Method method;
+    private DefaultEventExecutor executor;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        listener = new BenchmarkListener();
+        event = new BenchmarkEvent(this);
+
+        method = BenchmarkListener.class.getMethod("onEvent", BenchmarkEvent.class);
+        executor = new DefaultEventExecutor(listener, method.getAnnotation(EventHandler.class).priority(), method);
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) throws EventExecutionException {
+        // The previous DefaultEventExecutor.fire implementation, verbatim.
+        try {
+            method.setAccessible(true);
+            method.invoke(listener, event);
+        } catch (Exception e) {
+            throw new EventExecutionException(e);
+        }
+
+        blackhole.consume(listener.count);
+    }
+
+    @Benchmark
+    public void methodHandle(Blackhole blackhole) throws EventExecutionException {
+        executor.fire(event);
+
+        blackhole.consume(listener.count);
+    }
+
+    public static class BenchmarkListener implements EventListener {
+        private long count;
+
+        @EventHandler
+        public void onEvent(BenchmarkEvent event) {
+            count++;
+        }
+    }
+
+    public static class BenchmarkEvent extends Event {
+        public BenchmarkEvent(Object sender) {
+            super(sender);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.manebot.event;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures synchronous dispatch through DefaultEventManager.execute with a varying number of listeners registered for
+ * the fired event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventManagerBenchmark {
+    @Param({"1", "8", "64"})
+    private int listeners;
+
+    private DefaultEventManager eventManager;
+    private BenchmarkEvent event;
+
+    @Setup
+    public void setup() {
+        eventManager = new DefaultEventManager();
+        for (int i = 0; i < listeners; i ++) eventManager.registerListener(new BenchmarkListener());
+
+        event = new BenchmarkEvent(this);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventManager.getAsyncExecutor().shutdownNow();
+    }
+
+    @Benchmark
+    public Event execute() throws EventExecutionException {
+        return eventManager.execute(event);
+    }
+
+    @Benchmark
+    public Event executeUnhandled() throws EventExecutionException {
+        // An event with no listeners still walks its class hierarchy on the first dispatch only.
+        return eventManager.execute(new UnhandledEvent(this));
+    }
+
+    public static class BenchmarkListener implements EventListener {
+        private long count;
+
+        @EventHandler
+        public void onEvent(BenchmarkEvent event) {
+            count++;
+        }
+    }
+
+    public static class BenchmarkEvent extends Event {
+        public BenchmarkEvent(Object sender) {
+            super(sender);
+        }
+    }
+
+    public static class UnhandledEvent extends Event {
+        public UnhandledEvent(Object sender) {
+            super(sender);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.manebot.plugin.java;
+
+import io.manebot.plugin.java.classloader.ClassSource;
+import io.manebot.plugin.java.classloader.JavaPluginClassLoader;
+import io.manebot.plugin.java.classloader.LocalURLClassLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JavaPluginClassLoader.loadClass for a class already defined by the plugin, a class resolved through the
+ * system class loader, and a class that cannot be found anywhere.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginClassLoaderBenchmark {
+    private static final String PLUGIN_CLASS = Payload.class.getName();
+    private static final String SYSTEM_CLASS = "io.manebot.Bot";
+    private static final String MISSING_CLASS = "io.manebot.plugin.java.MissingClass";
+
+    private JavaPluginClassLoader classLoader;
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        URL location = PluginClassLoaderBenchmark.class.getProtectionDomain().getCodeSource().getLocation();
+
+        // The plugin "JAR" is the benchmark's own class directory, with no parent so nothing is delegated.
+        JavaPluginInstance instance = new JavaPluginInstance(
+                null,
+                new LocalURLClassLoader(new URL[] { location }, null),
+                ClassSource.URL_CLASS_SOURCE,
+                null,
+                null,
+                Collections.emptyMap()
+        );
+
+        classLoader = instance.getClassLoader();
+
+        // Define the plugin class up front; the benchmark measures the cached path.
+        if (classLoader.loadClass(PLUGIN_CLASS).getClassLoader() != classLoader)
+            throw new IllegalStateException(PLUGIN_CLASS + " was not defined by the plugin class loader");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Class<?> pluginHit() throws ClassNotFoundException {
+        return classLoader.loadClass(PLUGIN_CLASS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Class<?> systemHit() throws ClassNotFoundException {
+        return classLoader.loadClass(SYSTEM_CLASS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ClassNotFoundException miss() {
+        try {
+            classLoader.loadClass(MISSING_CLASS);
+        } catch (ClassNotFoundException ex) {
+            return ex;
+        }
+
+        throw new IllegalStateException(MISSING_CLASS + " was found");
+    }
+
+    public static class Payload {
+    }
+}
@@ -23,10 +23,12 @@ import io.manebot.database.model.User;
 import io.manebot.database.model.UserAssociation;
 import io.manebot.database.model.UserBan;
 import io.manebot.database.model.UserGroup;
+import io.manebot.event.AsyncEventExecutor;
 import io.manebot.event.DefaultEventManager;
 import io.manebot.event.EventDispatcher;
 import io.manebot.event.EventHandler;
 import io.manebot.event.EventListener;
+import io.manebot.event.ListenerIsolation;
 import io.manebot.event.chat.ChatUnknownUserEvent;
 import io.manebot.log.LineLogFormatter;
 import io.manebot.platform.DefaultPlatformManager;
@@ -38,15 +40,19 @@ import io.manebot.plugin.PluginRegistration;
 import io.manebot.security.DefaultElevationDispatcher;
 import io.manebot.security.ElevationDispatcher;
 import io.manebot.user.*;
+import io.manebot.util.VirtualThreads;
 import io.manebot.virtual.DefaultVirtual;
 import io.manebot.virtual.SynchronousTransfer;
 import io.manebot.virtual.Virtual;
+import io.manebot.virtual.VirtualProcess;
 import org.eclipse.aether.repository.RemoteRepository;
 
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
@@ -66,10 +72,11 @@ public final class DefaultBot implements Bot, Runnable {
             null :
             Version.fromString(BuildInformation.getApiVersion());
 
-    private final DefaultEventManager eventManager = new DefaultEventManager();
-    private final EventDispatcher eventDispatcher = eventManager;
-    private final CommandManager commandManager = new DefaultCommandManager();
-    private final ConversationProvider conversationProvider = new DefaultConversationProvider(this);
+    private final DefaultEventManager eventManager;
+    private final EventDispatcher eventDispatcher;
+    private final DefaultCommandManager commandManager = new DefaultCommandManager();
+    private final DefaultConversationProvider conversationProvider;
+    private final UserAssociationCache userAssociationCache;
     private final DefaultUserRegistration userRegistration = new DefaultUserRegistration(this);
     private AliasManager aliasManager;
 
@@ -90,7 +97,30 @@ public final class DefaultBot implements Bot, Runnable {
     private CommandDispatcher commandDispatcher;
     private io.manebot.database.Database systemDatabase;
 
-    private DefaultBot() { }
+    private DefaultBot(Properties variables) {
+        this.eventManager = new DefaultEventManager(
+                AsyncEventExecutor.fromProperties(readPropertySection(variables, "events.async"))
+        );
+
+        this.eventManager.setListenerBudget(
+                Long.parseLong(readPropertySection(variables, "events.listener").getProperty("budget", "0")),
+                TimeUnit.MILLISECONDS
+        );
+
+        this.eventDispatcher = eventManager;
+
+        // Senders' associations are cached, as every command from a chat looks one up.
+        this.userAssociationCache =
+                UserAssociationCache.fromProperties(readPropertySection(variables, "users.associations"));
+
+        // Conversations are cached by chat, as every command from a chat looks one up.
+        this.conversationProvider = new DefaultConversationProvider(this, Integer.parseInt(
+                readPropertySection(variables, "conversations").getProperty(
+                        "cache",
+                        Integer.toString(DefaultConversationProvider.DEFAULT_CACHE_SIZE)
+                )
+        ));
+    }
 
     @Override
     public Collection<Platform> getPlatforms() {
@@ -132,6 +162,10 @@ public final class DefaultBot implements Bot, Runnable {
         return eventDispatcher;
     }
 
+    public DefaultEventManager getEventManager() {
+        return eventManager;
+    }
+
     @Override
     public CommandDispatcher getCommandDispatcher() {
         return commandDispatcher;
@@ -343,13 +377,14 @@ public final class DefaultBot implements Bot, Runnable {
 
             logger.info("Starting manebot...");
 
-            DefaultBot bot = new DefaultBot();
+            DefaultBot bot = new DefaultBot(variables);
+            HibernateManager hibernateManager;
 
             try (LogTimer section_configuring = new LogTimer("Configuring database")) {
                 Properties properties = readPropertySection(variables, "database");
 
                 try (LogTimer section_connecting = new LogTimer("Connecting to database")) {
-                    bot.databaseManager = new HibernateManager(bot, properties);
+                    bot.databaseManager = hibernateManager = new HibernateManager(bot, properties);
 
                     bot.systemDatabase = bot.databaseManager.defineDatabase("system", (model) -> {
                         model.registerEntity(Plugin.class);
@@ -371,6 +406,7 @@ public final class DefaultBot implements Bot, Runnable {
 
                     bot.userManager = new DefaultUserManager(bot.systemDatabase);
                     bot.platformManager = new DefaultPlatformManager(bot.systemDatabase);
+                    bot.platformManager.addUnregistrationListener(bot.conversationProvider::invalidatePlatform);
                 }
             } catch (Exception ex) {
                 throw new IllegalArgumentException("Problem reading Hibernate configuration", ex);
@@ -463,6 +499,12 @@ public final class DefaultBot implements Bot, Runnable {
             DefaultVirtual virtual;
             Virtual.setInstance(virtual = new DefaultVirtual(user));
 
+            // Handlers given a deadline run on root-owned workers, which take on the user firing each event.
+            bot.eventManager.setIsolation(
+                    ListenerIsolation.fromProperties(readPropertySection(variables, "events.isolation")),
+                    virtual.currentProcess().newThreadFactory()
+            );
+
             ElevationDispatcher elevationDispatcher = new DefaultElevationDispatcher(
                     user,
                     Executors.newCachedThreadPool(virtual.currentProcess().newThreadFactory())
@@ -477,20 +519,150 @@ public final class DefaultBot implements Bot, Runnable {
                     elevationDispatcher
             );
 
-            SynchronousTransfer<io.manebot.user.User, AsyncCommandShell, Exception> shellTransfer =
-                    new SynchronousTransfer<>(
-                            Exception.class,
-                            new AsyncCommandShell.ShellFactory(bot.commandManager, bot.eventDispatcher)
-                    );
+            BanIndex banIndex = new BanIndex(bot.userManager);
+            try (LogTimer section_bans = new LogTimer("Loading bans")) {
+                banIndex.start();
+            }
+
+            // Associations created or removed anywhere, including by plugins, are forgotten as soon as they commit.
+            hibernateManager.addWriteListener(UserAssociation.class, bot.userAssociationCache::invalidate);
+            hibernateManager.addDeleteListener(UserAssociation.class, bot.userAssociationCache::invalidate);
 
-            Virtual.getInstance().create(shellTransfer).start();
+            // Bans issued or pardoned anywhere, including by plugins, reach the index as soon as they commit.
+            hibernateManager.addWriteListener(UserBan.class, banIndex::update);
+            bot.registerStateListener(state -> {
+                if (state == BotState.STOPPED) banIndex.close();
+            });
 
-            bot.commandDispatcher = new DefaultCommandDispatcher<>(
-                    new DefaultCommandDispatcher.CachedShellFactory<>(shellTransfer),
-                    bot.eventDispatcher
+            // Last seen dates are written behind, so commands do not each wait on a database write.
+            Properties lastSeenProperties = readPropertySection(variables, "users.lastseen");
+            LastSeenBuffer lastSeenBuffer = new LastSeenBuffer(
+                    Long.parseLong(lastSeenProperties.getProperty("interval", "30")),
+                    TimeUnit.SECONDS,
+                    Integer.parseInt(lastSeenProperties.getProperty("threshold", "1024"))
             );
+            bot.registerStateListener(state -> {
+                if (state == BotState.STOPPED) lastSeenBuffer.close();
+            });
+
+            Properties shellProperties = readPropertySection(variables, "shell");
+            ShellBacklogPolicy shellBacklogPolicy =
+                    ShellBacklogPolicy.fromProperties(readPropertySection(shellProperties, "backlog"));
+            ShellBacklogStatistics shellBacklogStatistics = new ShellBacklogStatistics();
+            CommandBatchPolicy commandBatchPolicy =
+                    CommandBatchPolicy.fromProperties(readPropertySection(shellProperties, "batch"));
+
+            // Commands have no deadline unless "shell.deadline.timeout" or "shell.deadline.label.<label>" is set.
+            CommandDeadlines commandDeadlines =
+                    CommandDeadlines.fromProperties(readPropertySection(shellProperties, "deadline"));
+            bot.registerStateListener(state -> {
+                if (state == BotState.STOPPED) commandDeadlines.close();
+            });
+
+            // Idle shells are closed by the lifecycle manager, which keeps the most recently used few open.
+            long shellIdleTimeout = Long.parseLong(shellProperties.getProperty("idle", "120"));
+            int shellWarm = Integer.parseInt(shellProperties.getProperty("warm", "4"));
+
+            ShellLifecycleManager<? extends ManagedCommandShell> shellManager;
+            String shellMode = shellProperties.getProperty("mode", "thread");
+
+            if (shellMode.equalsIgnoreCase("actor")) {
+                // Shells share a pool of worker processes, owned by root so they can take on each user.  The pool
+                // grows by a worker for each command abandoned at its deadline, until the command returns.
+                int workers = Integer.parseInt(shellProperties.getProperty(
+                        "workers",
+                        Integer.toString(Runtime.getRuntime().availableProcessors())
+                ));
+
+                if (!commandDeadlines.isEnabled())
+                    logger.warning("No command deadline is set; a command that never returns will hold one of the " +
+                            "shell workers for good.");
+
+                ActorCommandShell.ShellFactory actorShellFactory = new ActorCommandShell.ShellFactory(
+                        bot.commandManager,
+                        bot.eventDispatcher,
+                        banIndex,
+                        lastSeenBuffer,
+                        bot.commandManager.getStatistics(),
+                        commandBatchPolicy,
+                        commandDeadlines,
+                        virtual,
+                        Executors.newFixedThreadPool(workers, virtual.currentProcess().newThreadFactory()),
+                        shellBacklogPolicy,
+                        shellBacklogStatistics
+                );
+
+                // Actor shells have no process to start, so they are created on the requesting thread.
+                shellManager = new ShellLifecycleManager<ActorCommandShell>(
+                        actorShellFactory::apply,
+                        Runnable::run,
+                        shellIdleTimeout,
+                        TimeUnit.SECONDS,
+                        shellWarm
+                );
+
+                logger.info("Command shells will share " + workers + " worker processes.");
+            } else if (shellMode.equalsIgnoreCase("thread")) {
+                // Each user's shell runs in its own process; "shell.threads=virtual" runs them on virtual threads.
+                Function<Runnable, VirtualProcess> shellProcessFactory = virtual::create;
+                String shellThreads = shellProperties.getProperty("threads", "platform");
+                if (shellThreads.equalsIgnoreCase("virtual")) {
+                    if (VirtualThreads.isSupported()) {
+                        shellProcessFactory = virtual::createVirtual;
+                        logger.info("Command shells will run on virtual threads.");
+                    } else
+                        logger.warning("Virtual threads are not supported by this JVM; command shells will run on " +
+                                "platform threads.");
+                } else if (!shellThreads.equalsIgnoreCase("platform"))
+                    throw new IllegalArgumentException("unknown shell.threads: " + shellThreads);
+
+                // Shells are started by root processes, which may change a process's user, in parallel.
+                shellManager = new ShellLifecycleManager<AsyncCommandShell>(
+                        new AsyncCommandShell.ShellFactory(
+                                bot.commandManager,
+                                bot.eventDispatcher,
+                                banIndex,
+                                lastSeenBuffer,
+                                bot.commandManager.getStatistics(),
+                                commandBatchPolicy,
+                                commandDeadlines,
+                                shellProcessFactory,
+                                shellBacklogPolicy,
+                                shellBacklogStatistics
+                        ),
+                        Executors.newCachedThreadPool(virtual.currentProcess().newThreadFactory()),
+                        shellIdleTimeout,
+                        TimeUnit.SECONDS,
+                        shellWarm
+                );
+            } else
+                throw new IllegalArgumentException("unknown shell.mode: " + shellMode);
+
+            bot.registerStateListener(state -> {
+                if (state == BotState.STOPPED) shellManager.close();
+            });
+
+            // An abbreviated label is only suggested unless set to run: "shut" would otherwise run "shutdown".
+            String abbreviations = readPropertySection(variables, "commands").getProperty("abbreviations", "suggest");
+            if (abbreviations.equalsIgnoreCase("run"))
+                bot.commandManager.setRunAbbreviations(true);
+            else if (!abbreviations.equalsIgnoreCase("suggest"))
+                throw new IllegalArgumentException("unknown commands.abbreviations: " + abbreviations);
+
+            CommandRateLimiter rateLimiter =
+                    CommandRateLimiter.fromProperties(readPropertySection(variables, "commands.throttle"));
+
+            bot.commandDispatcher = new DefaultCommandDispatcher<ManagedCommandShell>(
+                    shellManager::apply,
+                    bot.eventDispatcher,
+                    bot.commandManager,
+                    rateLimiter
+            );
+
+            // Root's shell takes console commands.
+            if (shellWarm > 0) shellManager.prestart(Collections.singleton(user));
 
-            bot.chatDispatcher = new DefaultChatDispatcher(bot);
+            bot.chatDispatcher = new DefaultChatDispatcher(bot, bot.userAssociationCache);
 
             bot.aliasManager = new AliasManager(bot.systemDatabase, bot.commandManager);
             bot.commandManager.registerExecutor("alias", new AliasCommand(bot.aliasManager));
@@ -513,8 +685,8 @@ public final class DefaultBot implements Bot, Runnable {
             bot.commandManager.registerExecutor("user",
                     new UserCommand(bot.platformManager, bot.userManager, bot.systemDatabase));
             bot.commandManager.registerExecutor("group", new GroupCommand(bot.userManager, bot.systemDatabase));
-            bot.commandManager.registerExecutor("ban", new BanCommand(bot.userManager));
-            bot.commandManager.registerExecutor("unban", new UnbanCommand(bot.userManager));
+            bot.commandManager.registerExecutor("ban", new BanCommand(bot.userManager, banIndex));
+            bot.commandManager.registerExecutor("unban", new UnbanCommand(bot.userManager, banIndex));
             bot.commandManager.registerExecutor("permission",
                     new PermissionCommand(bot.userManager, bot.conversationProvider)).alias("perm");
             bot.commandManager.registerExecutor("runtime", new RuntimeCommand());
@@ -523,6 +695,15 @@ public final class DefaultBot implements Bot, Runnable {
                     new PropertyCommand(bot.userManager, bot.conversationProvider)).alias("prop");
             bot.commandManager.registerExecutor("repository", new RepositoryCommand(bot.systemDatabase)).alias("repo");
             bot.commandManager.registerExecutor("profile", new ProfileCommand());
+            bot.commandManager.registerExecutor("event", new EventCommand(bot.eventManager));
+            bot.commandManager.registerExecutor("stats", new StatsCommand(
+                    shellManager,
+                    shellBacklogStatistics,
+                    rateLimiter,
+                    bot.commandManager.getStatistics(),
+                    commandDeadlines,
+                    bot.userAssociationCache
+            ));
             bot.commandManager.registerExecutor("whoami", new WhoAmICommand());
             bot.commandManager.registerExecutor("confirm", new ConfirmCommand());
             bot.commandManager.registerExecutor("echo", new EchoCommand());
@@ -12,6 +12,7 @@ import io.manebot.event.chat.ChatMessageReceivedEvent;
 import io.manebot.event.chat.ChatUnknownUserEvent;
 
 import io.manebot.user.UserAssociation;
+import io.manebot.user.UserAssociationCache;
 import io.manebot.user.UserRegistration;
 import io.manebot.user.UserType;
 
@@ -19,9 +20,21 @@ import java.util.concurrent.Future;
 
 public class DefaultChatDispatcher implements ChatDispatcher {
     private final DefaultBot bot;
+    private final UserAssociationCache associationCache;
 
     public DefaultChatDispatcher(DefaultBot bot) {
+        this(bot, null);
+    }
+
+    /**
+     * Creates a chat dispatcher.
+     * @param bot bot to dispatch chat messages to.
+     * @param associationCache cache to look senders' user associations up in, or null to ask the platform for every
+     *                         command.
+     */
+    public DefaultChatDispatcher(DefaultBot bot, UserAssociationCache associationCache) {
         this.bot = bot;
+        this.associationCache = associationCache;
     }
 
     @Override
@@ -44,8 +57,11 @@ public class DefaultChatDispatcher implements ChatDispatcher {
 
         ChatMessage commandMessage = chat.parseCommand(chatMessage);
         if (commandMessage != null) {
-            String platformSpecificId = sender.getUsername();
-            UserAssociation userAssociation = chat.getPlatform().getUserAssocation(platformSpecificId);
+            // The ID associations are created with, and the cache is invalidated by.
+            String platformSpecificId = sender.getPlatformUser().getId();
+            UserAssociation userAssociation = associationCache != null ?
+                    associationCache.getUserAssociation(chat.getPlatform(), platformSpecificId) :
+                    chat.getPlatform().getUserAssocation(platformSpecificId);
             if (userAssociation == null)
                 return bot.getEventDispatcher().executeAsync(new ChatUnknownUserEvent(this, commandMessage));
 
@@ -64,6 +80,10 @@ public class DefaultChatDispatcher implements ChatDispatcher {
 
             return bot.getCommandDispatcher().executeAsync(new CommandMessage(commandMessage, commandSender));
         } else
-            return bot.getEventDispatcher().executeAsync(new ChatMessageReceivedEvent(this, chatMessage));
+            // Deliver messages from the same chat in order; messages from different chats in parallel.
+            return bot.getEventManager().executeAsync(
+                    new ChatMessageReceivedEvent(this, chatMessage),
+                    chat.getPlatform().getId() + ":" + chat.getId()
+            );
     }
 }
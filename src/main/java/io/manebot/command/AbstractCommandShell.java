@@ -9,17 +9,26 @@ import io.manebot.event.EventDispatcher;
 import io.manebot.event.EventExecutionException;
 import io.manebot.event.command.CommandExecutionEvent;
 import io.manebot.plugin.PluginException;
+import io.manebot.user.BanIndex;
+import io.manebot.user.LastSeenBuffer;
 import io.manebot.user.User;
 import io.manebot.user.UserBan;
+import io.manebot.util.TimerWheel;
 import io.manebot.virtual.Virtual;
 
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-abstract class AbstractCommandShell implements CommandShell {
+abstract class AbstractCommandShell implements ManagedCommandShell {
     private static final Map<Class<? extends Throwable>, Class<? extends CommandExecutionException>>
             permittedExceptionClasses = new LinkedHashMap<>();
     {
@@ -30,35 +39,186 @@ abstract class AbstractCommandShell implements CommandShell {
 
     private final CommandManager commandManager;
     private final EventDispatcher eventDispatcher;
+    private final BanIndex banIndex;
+    private final LastSeenBuffer lastSeenBuffer;
+    private final CommandStatistics statistics;
+    private final CommandBatchPolicy batchPolicy;
+    private final CommandDeadlines deadlines;
 
-    protected AbstractCommandShell(CommandManager commandManager, EventDispatcher eventDispatcher) {
+    private final AtomicInteger outstanding = new AtomicInteger(0);
+    private boolean buffering = false;
+
+    /**
+     * Creates a command shell.
+     * @param commandManager command manager to look commands up in.
+     * @param eventDispatcher event dispatcher to fire command events on.
+     * @param banIndex index to check the user's ban in, or null to check the database for every command.
+     * @param lastSeenBuffer buffer to record the user's last seen date in, or null to save it after every command.
+     * @param statistics statistics to record command metrics in, or null to not record them.
+     * @param batchPolicy policy for messages holding several commands, or null to run only the first line.
+     * @param deadlines deadlines to enforce on commands, or null to let commands run for as long as they take.
+     */
+    protected AbstractCommandShell(CommandManager commandManager, EventDispatcher eventDispatcher, BanIndex banIndex,
+                                   LastSeenBuffer lastSeenBuffer, CommandStatistics statistics,
+                                   CommandBatchPolicy batchPolicy, CommandDeadlines deadlines) {
         this.commandManager = commandManager;
         this.eventDispatcher = eventDispatcher;
+        this.banIndex = banIndex;
+        this.lastSeenBuffer = lastSeenBuffer;
+        this.statistics = statistics;
+        this.batchPolicy = batchPolicy;
+        this.deadlines = deadlines;
     }
 
     public abstract User getUser();
 
-    protected void handleCommand(CommandMessage commandMessage) {
-        String message = commandMessage.getMessage().split("\n")[0].trim();
+    @Override
+    public boolean isIdle() {
+        return outstanding.get() == 0;
+    }
+
+    /**
+     * Closes the shell if it is idle.  Subclasses accept commands, and close, while holding the shell's lock.
+     */
+    @Override
+    public synchronized boolean closeIfIdle() {
+        if (!isIdle()) return false;
+
+        close();
+        return true;
+    }
+
+    /**
+     * Counts a queued command as outstanding until it completes.  Cancelling the returned future, or completing it
+     * exceptionally (such as with {@link CompletableFuture#orTimeout}), cancels the command.
+     * @param command queued command.
+     * @return the command's future.
+     */
+    protected CompletableFuture<Boolean> track(AsyncCommand command) {
+        outstanding.incrementAndGet();
+
+        CompletableFuture<Boolean> future = command.getFuture();
+        future.whenComplete((result, ex) -> {
+            outstanding.decrementAndGet();
+
+            if (ex != null) command.cancel(ex instanceof TimeoutException ?
+                    CancellationToken.Reason.TIMEOUT :
+                    CancellationToken.Reason.CANCELLED);
+        });
+
+        return future;
+    }
+
+    /**
+     * Gives the shell up to a command that did not stop when cancelled.  The shell stops taking commands, fails the
+     * commands waiting in it, and reports itself closed so its user is given a new shell; the command keeps its
+     * thread until it returns.
+     */
+    protected abstract void abandon();
+
+    /**
+     * Sends a notice from the shell itself, such as a command not being found, to the sender of a command.
+     * @param sender sender of the command.
+     * @param message notice to send.
+     */
+    protected void reply(CommandSender sender, String message) {
+        sender.sendMessage(message);
+    }
+
+    /**
+     * Begins buffering messages to the sender of a command, until the shell ends the buffer after the command's message.
+     * @param sender sender of the command.
+     */
+    protected void begin(CommandSender sender) {
+        sender.begin();
+    }
+
+    protected void handleCommand(AsyncCommand asyncCommand) {
+        long started = System.nanoTime();
+        CommandMessage commandMessage = asyncCommand.getMessage();
+        CancellationToken token = asyncCommand.getToken();
+        buffering = false;
+
+        // Cancelled while it waited
+        if (token.isCancelled()) return;
+
+        token.bind();
+
+        try {
+            if (batchPolicy == null || !batchPolicy.isEnabled()) {
+                runCommand(asyncCommand, ParsedCommand.parse(commandMessage.getMessage()), started);
+                return;
+            }
+
+            List<ParsedCommand> commands = ParsedCommand.parseAll(commandMessage.getMessage());
+            int limit = Math.min(commands.size(), batchPolicy.getLimit());
+
+            for (int i = 0; i < limit; i ++) {
+                if (token.isCancelled()) {
+                    limit = i;
+                    break;
+                }
+
+                if (!runCommand(asyncCommand, commands.get(i), started) && batchPolicy.isStopOnError()) {
+                    limit = i + 1;
+                    break;
+                }
+            }
+
+            if (limit < commands.size())
+                reply(commandMessage.getSender(), (commands.size() - limit) + " more command(s) were not run.");
+        } finally {
+            token.unbind();
+            commandMessage.getSender().end();
 
-        Virtual.getInstance().getLogger().info(commandMessage.getSender().getUsername() + " -> " + message);
+            Date now = Calendar.getInstance().getTime();
+            if (lastSeenBuffer != null) lastSeenBuffer.touch(getUser(), now);
+            else getUser().setLastSeenDate(now);
+        }
+    }
+
+    /**
+     * Runs one command parsed out of a message.  Commands in the same message share the sender's buffer, which the
+     * first buffered command begins and the caller ends.
+     * @param asyncCommand queued command the message was sent in.
+     * @param command command to run.
+     * @param started time the shell took the queued command, from {@link System#nanoTime()}.
+     * @return true if the command ran without a problem.
+     */
+    private boolean runCommand(AsyncCommand asyncCommand, ParsedCommand command, long started) {
+        CommandMessage commandMessage = asyncCommand.getMessage();
+        CommandMetrics metrics = null;
 
-        // Remove all double-spaces
-        message = message.replace("\t", "\0");
-        while (message.contains("\0\0")) message = message.replace("\0\0", "\0");
+        String label = command.getLabel();
+        String[] arguments = command.getArguments();
 
-        // Get command label and its arguments
-        String[] labelAndArguments = message.split("[ ]", 2);
-        String label = labelAndArguments[0];
-        String[] arguments = labelAndArguments.length > 1 ? labelAndArguments[1].split("[ ]") : new String[0];
+        Virtual.getInstance().getLogger().info(commandMessage.getSender().getUsername() + " -> " + command.getLine());
 
-        label = label.toLowerCase();
+        List<String> suggestions = null;
 
         try {
             // Find command associated with this label
             CommandExecutor executor = commandManager.getExecutor(label);
+
+            if (executor == null && commandManager instanceof DefaultCommandManager) {
+                DefaultCommandManager defaultCommandManager = (DefaultCommandManager) commandManager;
+
+                String completed = defaultCommandManager.getAbbreviatedLabel(label);
+                if (completed != null && defaultCommandManager.isRunAbbreviations())
+                    executor = defaultCommandManager.getExecutor(label = completed);
+                else if (completed != null)
+                    suggestions = Collections.singletonList(completed);
+                else
+                    suggestions = defaultCommandManager.getSuggestions(label);
+            }
+
             if (executor == null) throw new CommandNotFoundException(label);
 
+            if (statistics != null) {
+                metrics = statistics.getOrCreateMetrics(label);
+                metrics.recordQueueWait(started - asyncCommand.getQueued());
+            }
+
             try {
                 eventDispatcher.execute(
                         new CommandExecutionEvent(this, executor, commandMessage.getSender(), commandMessage)
@@ -67,7 +227,7 @@ abstract class AbstractCommandShell implements CommandShell {
                 throw new CommandExecutionException(e);
             }
 
-            UserBan ban = getUser().getBan();
+            UserBan ban = banIndex != null ? banIndex.getBan(getUser()) : getUser().getBan();
             if (ban != null && !ban.isPardoned()) {
                 if (ban.getReason() != null)
                     throw new CommandAccessException("You have been banned until " +
@@ -79,9 +239,16 @@ abstract class AbstractCommandShell implements CommandShell {
                             ban.getBanningUser().getDisplayName());
             }
 
-            if (executor.isBuffered() && commandMessage.getSender().getChat().isBuffered())
-                commandMessage.getSender().begin();
+            if (!buffering && executor.isBuffered() && commandMessage.getSender().getChat().isBuffered()) {
+                begin(commandMessage.getSender());
+                buffering = true;
+            }
 
+            CancellationToken token = asyncCommand.getToken();
+            TimerWheel<Runnable>.Timeout deadline =
+                    deadlines != null ? deadlines.start(this, asyncCommand, label) : null;
+
+            long executing = System.nanoTime();
             try {
                 try {
                     executor.execute(commandMessage.getSender(), label, arguments);
@@ -91,6 +258,18 @@ abstract class AbstractCommandShell implements CommandShell {
             } catch (ThreadDeath threadDeath) {
                 throw new CommandAccessException("Command execution was forcefully stopped.", threadDeath);
             } catch (Throwable e) {
+                // The executor gave up because it was interrupted or saw the command's token.
+                if (token.isCancelled()) {
+                    reply(
+                            commandMessage.getSender(),
+                            token.getReason() == CancellationToken.Reason.TIMEOUT ?
+                                    "Command timed out." :
+                                    "Command was cancelled."
+                    );
+
+                    return false;
+                }
+
                 // Unpack the exception down to a CommandExecutionException
                 Throwable z = e;
                 while (!(z instanceof CommandExecutionException)) {
@@ -133,15 +312,32 @@ abstract class AbstractCommandShell implements CommandShell {
                         e
                 );
 
-                commandMessage.getSender().sendMessage("There was an unexpected problem executing the command.");
+                if (metrics != null) metrics.recordFailure();
+
+                reply(commandMessage.getSender(), "There was an unexpected problem executing the command.");
+                return false;
+            } finally {
+                if (deadline != null) deadline.cancel();
+
+                if (metrics != null) {
+                    metrics.recordExecution(System.nanoTime() - executing);
+
+                    if (token.getReason() == CancellationToken.Reason.TIMEOUT) metrics.recordTimeout();
+                    else if (token.getReason() == CancellationToken.Reason.CANCELLED) metrics.recordCancellation();
+                }
             }
         } catch (CommandExecutionException e) { // User error that we can describe safely
-            //Logger.getGlobal().log(Level.WARNING, "Problem executing command", e);
-            commandMessage.getSender().sendMessage("Problem executing command: " + e.getMessage());
-        } finally {
-            commandMessage.getSender().end();
+            if (metrics != null) metrics.recordError();
 
-            getUser().setLastSeenDate(Calendar.getInstance().getTime());
+            //Logger.getGlobal().log(Level.WARNING, "Problem executing command", e);
+            if (suggestions != null && !suggestions.isEmpty())
+                reply(commandMessage.getSender(), "Problem executing command: " + e.getMessage() +
+                        " Did you mean " + String.join(", ", suggestions) + "?");
+            else
+                reply(commandMessage.getSender(), "Problem executing command: " + e.getMessage());
+            return false;
         }
+
+        return true;
     }
 }
@@ -0,0 +1,270 @@
+package io.manebot.command;
+
+import io.manebot.command.exception.CommandExecutionException;
+import io.manebot.event.EventDispatcher;
+import io.manebot.user.BanIndex;
+import io.manebot.user.LastSeenBuffer;
+import io.manebot.user.User;
+import io.manebot.virtual.DefaultVirtual;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A command shell with no thread of its own.  Commands are queued in the shell's mailbox and run, in order, by a
+ * worker pool shared by every shell; the worker takes on the shell's user for the duration of each command.
+ *
+ * A shell runs one command per turn and then goes to the back of the pool's queue, so a user with a full mailbox
+ * cannot hold workers while other users are waiting.  An idle shell costs only its (empty) mailbox.
+ *
+ * A worker left to a command that would not stop is replaced for as long as the command keeps running, if the pool is
+ * a {@link ThreadPoolExecutor}; otherwise the abandoned command keeps its worker from other shells until it returns.
+ */
+public class ActorCommandShell extends AbstractCommandShell {
+    private final User user;
+    private final ShellBacklog mailbox;
+    private final DefaultVirtual virtual;
+    private final Executor workers;
+
+    private static final int IDLE = 0, RUNNING = 1, REPLACED = 2;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicInteger running = new AtomicInteger(IDLE);
+    private volatile boolean abandoned = false;
+    private volatile boolean closed = false;
+
+    ActorCommandShell(CommandManager commandManager, EventDispatcher eventDispatcher, BanIndex banIndex,
+                      LastSeenBuffer lastSeenBuffer, CommandStatistics statistics, CommandBatchPolicy batchPolicy,
+                      CommandDeadlines deadlines, User user, ShellBacklog mailbox, DefaultVirtual virtual,
+                      Executor workers) {
+        super(commandManager, eventDispatcher, banIndex, lastSeenBuffer, statistics, batchPolicy, deadlines);
+
+        this.user = user;
+        this.mailbox = mailbox;
+        this.virtual = virtual;
+        this.workers = workers;
+    }
+
+    @Override
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public void execute(CommandMessage commandMessage) throws CommandExecutionException {
+        try {
+            executeAsync(commandMessage).get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof CommandExecutionException)
+                throw (CommandExecutionException) ee.getCause();
+
+            throw new CommandExecutionException(ee);
+        } catch (Exception e) {
+            throw new CommandExecutionException(e);
+        }
+    }
+
+    @Override
+    public synchronized Future<Boolean> executeAsync(CommandMessage commandMessage) {
+        if (abandoned) throw new IllegalStateException("shell was abandoned");
+        if (closed) throw new IllegalStateException("shell is closed");
+
+        ShellBacklog.Offer offer = mailbox.offer(commandMessage);
+
+        // Merged into a command that is already queued, and so already has a turn coming.
+        if (offer.isCoalesced()) return offer.getCoalescedFuture();
+
+        AsyncCommand command = offer.getCommand();
+
+        try {
+            schedule();
+        } catch (RejectedExecutionException ex) {
+            mailbox.remove(command);
+            throw new IllegalStateException("shell workers are not running", ex);
+        }
+
+        return track(command);
+    }
+
+    /**
+     * Gives the shell a turn on the worker pool, unless it already has one queued or running.
+     */
+    private void schedule() throws RejectedExecutionException {
+        if (!scheduled.compareAndSet(false, true)) return;
+
+        try {
+            workers.execute(this::turn);
+        } catch (RejectedExecutionException ex) {
+            scheduled.set(false);
+            throw ex;
+        }
+    }
+
+    private void turn() {
+        AsyncCommand command = mailbox.poll();
+
+        try {
+            if (command != null) run(command);
+        } finally {
+            // Commands queued after the poll above either see this flag cleared and schedule a turn themselves, or
+            // are seen here.
+            scheduled.set(false);
+
+            if (!mailbox.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RejectedExecutionException ex) {
+                    AsyncCommand abandoned;
+                    while ((abandoned = mailbox.poll()) != null) abandoned.getFuture().completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private void run(AsyncCommand command) {
+        running.set(RUNNING);
+
+        try {
+            virtual.runAs(user, () -> handleCommand(command));
+        } catch (Throwable ex) {
+            Logger.getGlobal().log(
+                    Level.SEVERE,
+                    "Unexpected problem handling chat message in shell: " + getUser().getName(),
+                    ex
+            );
+        } finally {
+            command.getMessage().getSender().end();
+            command.getFuture().complete(true);
+
+            // The command was abandoned, and its worker replaced; the pool is back to its size without this worker.
+            if (!running.compareAndSet(RUNNING, IDLE)) {
+                running.set(IDLE);
+                resize(-1);
+            }
+        }
+    }
+
+    /**
+     * Grows or shrinks the worker pool, if it can be resized.
+     * @param delta number of workers to add, or to remove if negative.
+     */
+    private void resize(int delta) {
+        if (!(workers instanceof ThreadPoolExecutor)) return;
+
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) workers;
+        synchronized (pool) {
+            // The maximum size may never be below the core size.
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /**
+     * Open until abandoned or closed: the shell has no thread or process that could stop.
+     */
+    @Override
+    public boolean isOpen() {
+        return !abandoned && !closed;
+    }
+
+    @Override
+    public void ensureOpen() {
+        if (!isOpen()) throw new IllegalStateException();
+    }
+
+    /**
+     * Leaves the worker running the command that would not stop, and gives the pool a worker in its place; the
+     * shell's turn ends when the command returns.
+     */
+    @Override
+    protected synchronized void abandon() {
+        abandoned = true;
+
+        if (running.compareAndSet(RUNNING, REPLACED)) resize(1);
+
+        AsyncCommand command;
+        while ((command = mailbox.poll()) != null)
+            command.getFuture().completeExceptionally(new IllegalStateException("shell was abandoned"));
+    }
+
+    /**
+     * Stops taking commands.  Commands already in the mailbox still run; the shell holds nothing else to release.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public static class ShellFactory implements Function<User, ActorCommandShell> {
+        private final CommandManager commandManager;
+        private final EventDispatcher eventDispatcher;
+        private final BanIndex banIndex;
+        private final LastSeenBuffer lastSeenBuffer;
+        private final CommandStatistics statistics;
+        private final CommandBatchPolicy batchPolicy;
+        private final CommandDeadlines deadlines;
+        private final DefaultVirtual virtual;
+        private final Executor workers;
+        private final ShellBacklogPolicy backlogPolicy;
+        private final ShellBacklogStatistics backlogStatistics;
+
+        /**
+         * Creates a shell factory.
+         * @param commandManager command manager to look commands up in.
+         * @param eventDispatcher event dispatcher to fire command events on.
+         * @param banIndex index to check users' bans in, or null to check the database for every command.
+         * @param lastSeenBuffer buffer to record users' last seen dates in, or null to save them after every command.
+         * @param statistics statistics to record command metrics in, or null to not record them.
+         * @param batchPolicy policy for messages holding several commands, or null to run only the first line.
+         * @param deadlines deadlines to enforce on commands, or null to let commands run for as long as they take.
+         * @param virtual virtual environment the worker processes belong to.
+         * @param workers worker pool, whose threads must be processes allowed to change their user.  A
+         *                {@link ThreadPoolExecutor} is grown by a worker for each command its shell is abandoned to.
+         * @param backlogPolicy policy bounding the commands waiting in each shell's mailbox.
+         * @param backlogStatistics statistics to count mailbox activity in.
+         */
+        public ShellFactory(CommandManager commandManager, EventDispatcher eventDispatcher, BanIndex banIndex,
+                            LastSeenBuffer lastSeenBuffer, CommandStatistics statistics,
+                            CommandBatchPolicy batchPolicy, CommandDeadlines deadlines,
+                            DefaultVirtual virtual, Executor workers,
+                            ShellBacklogPolicy backlogPolicy, ShellBacklogStatistics backlogStatistics) {
+            this.commandManager = commandManager;
+            this.eventDispatcher = eventDispatcher;
+            this.banIndex = banIndex;
+            this.lastSeenBuffer = lastSeenBuffer;
+            this.statistics = statistics;
+            this.batchPolicy = batchPolicy;
+            this.deadlines = deadlines;
+            this.virtual = virtual;
+            this.workers = workers;
+            this.backlogPolicy = backlogPolicy;
+            this.backlogStatistics = backlogStatistics;
+        }
+
+        @Override
+        public ActorCommandShell apply(User user) {
+            return new ActorCommandShell(
+                    commandManager,
+                    eventDispatcher,
+                    banIndex,
+                    lastSeenBuffer,
+                    statistics,
+                    batchPolicy,
+                    deadlines,
+                    user,
+                    new ShellBacklog(user, backlogPolicy, backlogStatistics),
+                    virtual,
+                    workers
+            );
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package io.manebot.command;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 public class AsyncCommand {
     private final CompletableFuture<Boolean> future;
     private final CommandMessage commandMessage;
+    private final long queued;
+    private final CancellationToken token = new CancellationToken();
 
     AsyncCommand(CommandMessage commandMessage) {
         this.future = new CompletableFuture<>();
         this.commandMessage = commandMessage;
+        this.queued = System.nanoTime();
     }
 
     public CompletableFuture<Boolean> getFuture() {
@@ -18,4 +23,29 @@ public class AsyncCommand {
     public CommandMessage getMessage() {
         return commandMessage;
     }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    /**
+     * Cancels the command, interrupting it if it is running, and completes its future exceptionally.
+     * @param reason reason for cancelling.
+     * @return true if the command was cancelled, false if it had already been.
+     */
+    boolean cancel(CancellationToken.Reason reason) {
+        if (!token.cancel(reason)) return false;
+
+        future.completeExceptionally(reason == CancellationToken.Reason.TIMEOUT ?
+                new TimeoutException("command timed out") :
+                new CancellationException("command was cancelled"));
+        return true;
+    }
+
+    /**
+     * Gets the time the command was queued, from {@link System#nanoTime()}.
+     */
+    long getQueued() {
+        return queued;
+    }
 }
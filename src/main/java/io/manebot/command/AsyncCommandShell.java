@@ -3,37 +3,36 @@ package io.manebot.command;
 import io.manebot.command.exception.CommandExecutionException;
 import io.manebot.event.EventDispatcher;
 import io.manebot.lambda.ThrowingFunction;
+import io.manebot.user.BanIndex;
+import io.manebot.user.LastSeenBuffer;
 import io.manebot.user.User;
 import io.manebot.virtual.Virtual;
 import io.manebot.virtual.VirtualProcess;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class AsyncCommandShell extends AbstractCommandShell implements Runnable {
-    private final long maximumIdleTime = 120_000L;
-    private static final int defaultBacklog = 3;
-
-    private final Runnable complete;
     private final User user;
-    private final BlockingDeque<AsyncCommand> queue;
+    private final ShellBacklog backlog;
 
     private final VirtualProcess process;
 
     private boolean running = false;
+    private volatile boolean closing = false;
+    private boolean handling = false;
 
     AsyncCommandShell(CommandManager commandManager, EventDispatcher eventDispatcher,
-                      User user, int backlog, Runnable complete) {
-        super(commandManager, eventDispatcher);
+                      BanIndex banIndex, LastSeenBuffer lastSeenBuffer, CommandStatistics statistics,
+                      CommandBatchPolicy batchPolicy, CommandDeadlines deadlines, User user, ShellBacklog backlog,
+                      Function<Runnable, VirtualProcess> processFactory) {
+        super(commandManager, eventDispatcher, banIndex, lastSeenBuffer, statistics, batchPolicy, deadlines);
 
-        this.complete = complete;
         this.user = user;
-        this.queue = new LinkedBlockingDeque<>(backlog);
-        this.process = Virtual.getInstance().create(this);
+        this.backlog = backlog;
+        this.process = processFactory.apply(this);
     }
 
     public boolean isRunning() {
@@ -57,8 +56,6 @@ public class AsyncCommandShell extends AbstractCommandShell implements Runnable
             }
 
             this.running = b;
-
-            if (!b) complete.run();
         }
     }
 
@@ -77,20 +74,18 @@ public class AsyncCommandShell extends AbstractCommandShell implements Runnable
     }
 
     @Override
-    public Future<Boolean> executeAsync(CommandMessage commandMessage) {
-        AsyncCommand command;
-
-        if (!isRunning()) throw new IllegalStateException("shell is not running");
+    public synchronized Future<Boolean> executeAsync(CommandMessage commandMessage) {
+        if (!isRunning() || closing) throw new IllegalStateException("shell is not running");
 
-        if (!queue.add(command = new AsyncCommand(commandMessage)))
-            throw new IllegalStateException("shell queue is full");
+        ShellBacklog.Offer offer = backlog.offer(commandMessage);
+        if (offer.isCoalesced()) return offer.getCoalescedFuture();
 
-        return command.getFuture();
+        return track(offer.getCommand());
     }
 
     @Override
     public boolean isOpen() {
-        return process.isRunning() && running;
+        return process.isRunning() && running && !closing;
     }
 
     @Override
@@ -100,25 +95,52 @@ public class AsyncCommandShell extends AbstractCommandShell implements Runnable
         }
     }
 
+    /**
+     * Stops taking commands, and stops the shell's process once the commands already queued have run.  Commands are
+     * accepted while holding the shell's lock, so none is queued behind the close.  Idle shells are closed by their
+     * lifecycle manager rather than timing out on their own.
+     */
+    @Override
+    public synchronized void close() {
+        closing = true;
+
+        // Otherwise the loop stops on its own once the backlog is empty.
+        if (!handling && backlog.isEmpty()) setRunning(false);
+    }
+
+    /**
+     * Leaves the process to the command that would not stop; it exits when the command returns.
+     */
+    @Override
+    protected synchronized void abandon() {
+        setRunning(false);
+
+        AsyncCommand abandoned;
+        while ((abandoned = backlog.poll()) != null)
+            abandoned.getFuture().completeExceptionally(new IllegalStateException("shell was abandoned"));
+    }
+
     @Override
     public void run() {
         try {
-            long lastMessage = System.currentTimeMillis();
             AsyncCommand asyncCommand;
 
             while (isRunning()) {
-                long wait = maximumIdleTime - (System.currentTimeMillis() - lastMessage);
-
                 try {
-                    asyncCommand = queue.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+                    asyncCommand = backlog.take();
                 } catch (InterruptedException | IllegalMonitorStateException ex) {
                     break;
                 }
 
-                if (asyncCommand == null) break;
+                synchronized (this) {
+                    handling = true;
+
+                    // An interrupt from close() meant for the wait above; the loop stops after this command.
+                    Thread.interrupted();
+                }
 
                 try {
-                    handleCommand(asyncCommand.getMessage());
+                    handleCommand(asyncCommand);
                 } catch (java.lang.ThreadDeath ex) {
                     break;
                 } catch (Throwable ex) {
@@ -133,31 +155,94 @@ public class AsyncCommandShell extends AbstractCommandShell implements Runnable
                     asyncCommand.getMessage().getSender().end();
                     asyncCommand.getFuture().complete(true);
                 }
+
+                synchronized (this) {
+                    handling = false;
+                    if (closing && backlog.isEmpty()) break;
+                }
             }
         } finally {
             setRunning(false);
+
+            // Commands queued as the shell closed will never run here.
+            AsyncCommand abandoned;
+            while ((abandoned = backlog.poll()) != null)
+                abandoned.getFuture().completeExceptionally(new IllegalStateException("shell closed"));
         }
     }
 
     public static class ShellFactory implements ThrowingFunction<User, AsyncCommandShell, Exception> {
         private final CommandManager commandManager;
         private final EventDispatcher eventDispatcher;
-        private final Map<User, AsyncCommandShell> shells = new LinkedHashMap<>();
+        private final BanIndex banIndex;
+        private final LastSeenBuffer lastSeenBuffer;
+        private final CommandStatistics statistics;
+        private final CommandBatchPolicy batchPolicy;
+        private final CommandDeadlines deadlines;
+        private final Function<Runnable, VirtualProcess> processFactory;
+        private final ShellBacklogPolicy backlogPolicy;
+        private final ShellBacklogStatistics backlogStatistics;
 
         public ShellFactory(CommandManager commandManager, EventDispatcher eventDispatcher) {
+            this(
+                    commandManager,
+                    eventDispatcher,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    runnable -> Virtual.getInstance().create(runnable),
+                    new ShellBacklogPolicy(),
+                    new ShellBacklogStatistics()
+            );
+        }
+
+        /**
+         * Creates a shell factory.
+         * @param commandManager command manager to look commands up in.
+         * @param eventDispatcher event dispatcher to fire command events on.
+         * @param banIndex index to check users' bans in, or null to check the database for every command.
+         * @param lastSeenBuffer buffer to record users' last seen dates in, or null to save them after every command.
+         * @param statistics statistics to record command metrics in, or null to not record them.
+         * @param batchPolicy policy for messages holding several commands, or null to run only the first line.
+         * @param deadlines deadlines to enforce on commands, or null to let commands run for as long as they take.
+         * @param processFactory function creating the (unstarted) process each shell runs its commands in, called on
+         *                       the thread requesting the shell.
+         * @param backlogPolicy policy bounding the commands waiting in each shell.
+         * @param backlogStatistics statistics to count shell backlog activity in.
+         */
+        public ShellFactory(CommandManager commandManager, EventDispatcher eventDispatcher, BanIndex banIndex,
+                            LastSeenBuffer lastSeenBuffer, CommandStatistics statistics,
+                            CommandBatchPolicy batchPolicy, CommandDeadlines deadlines,
+                            Function<Runnable, VirtualProcess> processFactory,
+                            ShellBacklogPolicy backlogPolicy, ShellBacklogStatistics backlogStatistics) {
             this.commandManager = commandManager;
             this.eventDispatcher = eventDispatcher;
+            this.banIndex = banIndex;
+            this.lastSeenBuffer = lastSeenBuffer;
+            this.statistics = statistics;
+            this.batchPolicy = batchPolicy;
+            this.deadlines = deadlines;
+            this.processFactory = processFactory;
+            this.backlogPolicy = backlogPolicy;
+            this.backlogStatistics = backlogStatistics;
         }
 
         @Override
         public AsyncCommandShell applyChecked(User user) throws Exception {
-            AsyncCommandShell shell = shells.computeIfAbsent(user, key -> new AsyncCommandShell(
+            AsyncCommandShell shell = new AsyncCommandShell(
                     commandManager,
                     eventDispatcher,
-                    key,
-                    defaultBacklog,
-                    () -> shells.remove(key)
-            ));
+                    banIndex,
+                    lastSeenBuffer,
+                    statistics,
+                    batchPolicy,
+                    deadlines,
+                    user,
+                    new ShellBacklog(user, backlogPolicy, backlogStatistics),
+                    processFactory
+            );
 
             shell.setRunning(true);
 
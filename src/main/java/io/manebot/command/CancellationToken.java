@@ -0,0 +1,92 @@
+package io.manebot.command;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Signals that a command should stop: its future was cancelled, or it ran past its deadline.  The thread running a
+ * cancelled command is interrupted, so blocking calls end early; executors doing long work without blocking should
+ * check {@link #current()} between steps.
+ */
+public final class CancellationToken {
+    private static final ThreadLocal<CancellationToken> current = new ThreadLocal<>();
+    private static final CancellationToken NONE = new CancellationToken();
+
+    private volatile Reason reason;
+    private Thread thread;
+
+    CancellationToken() {
+    }
+
+    /**
+     * Gets the token of the command running on the current thread.
+     * @return token, or a token that is never cancelled if no command is running on this thread.
+     */
+    public static CancellationToken current() {
+        CancellationToken token = current.get();
+        return token != null ? token : NONE;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /**
+     * Gets why the command was cancelled.
+     * @return reason, or null if the command has not been cancelled.
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Stops the calling command if it has been cancelled.
+     * @throws CancellationException if the command has been cancelled.
+     */
+    public void throwIfCancelled() throws CancellationException {
+        Reason reason = this.reason;
+        if (reason == Reason.TIMEOUT) throw new CancellationException("command timed out");
+        else if (reason != null) throw new CancellationException("command was cancelled");
+    }
+
+    /**
+     * Cancels the command, interrupting the thread running it.
+     * @param reason reason for cancelling.
+     * @return true if the command was cancelled, false if it already had been.
+     */
+    synchronized boolean cancel(Reason reason) {
+        if (this.reason != null) return false;
+
+        this.reason = reason;
+        if (thread != null) thread.interrupt();
+        return true;
+    }
+
+    /**
+     * Makes this the token of the command running on the current thread.
+     */
+    synchronized void bind() {
+        thread = Thread.currentThread();
+        current.set(this);
+    }
+
+    /**
+     * Detaches this token from the current thread, clearing any interrupt it caused.
+     */
+    synchronized void unbind() {
+        current.remove();
+        thread = null;
+        if (reason != null) Thread.interrupted();
+    }
+
+    /**
+     * Finds if the command is still running.
+     */
+    synchronized boolean isBound() {
+        return thread != null;
+    }
+
+    public enum Reason {
+        CANCELLED,
+        TIMEOUT
+    }
+}
@@ -0,0 +1,60 @@
+package io.manebot.command;
+
+import java.util.Properties;
+
+/**
+ * Decides how a shell runs a message holding a command on each of several lines.  Up to the policy's limit of commands
+ * are run from one message, in order, sharing the sender's buffer; with stop-on-error, a command that fails ends the
+ * batch.  A limit of one runs only the first line, as if the message held no further commands.
+ */
+public final class CommandBatchPolicy {
+    public static final int DEFAULT_LIMIT = 1;
+    public static final boolean DEFAULT_STOP_ON_ERROR = true;
+
+    private final int limit;
+    private final boolean stopOnError;
+
+    public CommandBatchPolicy() {
+        this(DEFAULT_LIMIT, DEFAULT_STOP_ON_ERROR);
+    }
+
+    /**
+     * Creates a batch policy.
+     * @param limit maximum number of commands run from one message.
+     * @param stopOnError true if a command that fails ends the batch, false if the remaining commands still run.
+     */
+    public CommandBatchPolicy(int limit, boolean stopOnError) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+
+        this.limit = limit;
+        this.stopOnError = stopOnError;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isStopOnError() {
+        return stopOnError;
+    }
+
+    /**
+     * Finds if messages may hold more than one command.
+     */
+    public boolean isEnabled() {
+        return limit > 1;
+    }
+
+    /**
+     * Reads a batch policy.  <i>limit</i> sets the maximum number of commands run from one message, and
+     * <i>stop-on-error</i> whether a command that fails ends the batch.
+     * @param properties properties to read.
+     * @return batch policy.
+     */
+    public static CommandBatchPolicy fromProperties(Properties properties) {
+        return new CommandBatchPolicy(
+                Integer.parseInt(properties.getProperty("limit", Integer.toString(DEFAULT_LIMIT))),
+                Boolean.parseBoolean(properties.getProperty("stop-on-error", Boolean.toString(DEFAULT_STOP_ON_ERROR)))
+        );
+    }
+}
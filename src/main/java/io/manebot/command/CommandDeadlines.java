@@ -0,0 +1,135 @@
+package io.manebot.command;
+
+import io.manebot.util.TimerWheel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces command deadlines.  A command still running at its deadline is cancelled through its token, which
+ * interrupts it; if it is still running after a grace period, its shell is abandoned to it and the user is given a new
+ * shell.  Deadlines can be set for all commands and for individual labels.
+ */
+public final class CommandDeadlines implements AutoCloseable {
+    public static final long DEFAULT_GRACE = 5_000L;
+
+    private final long defaultTimeout;
+    private final Map<String, Long> labelTimeouts;
+    private final long grace;
+
+    private final TimerWheel<Runnable> timers;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    /**
+     * Creates command deadlines.
+     * @param defaultTimeout time commands may run for, in milliseconds, or 0 for no deadline.
+     * @param labelTimeouts time commands may run for by label, in milliseconds, with 0 for no deadline.
+     * @param grace time a cancelled command has to stop before its shell is abandoned, in milliseconds.
+     */
+    public CommandDeadlines(long defaultTimeout, Map<String, Long> labelTimeouts, long grace) {
+        if (defaultTimeout < 0L) throw new IllegalArgumentException("timeout must not be negative");
+        if (grace < 0L) throw new IllegalArgumentException("grace must not be negative");
+
+        this.defaultTimeout = defaultTimeout;
+        this.labelTimeouts = labelTimeouts;
+        this.grace = grace;
+
+        // 100ms ticks, and a wheel a little over a minute and a half around.  With no deadline set, no timer thread is
+        // started.
+        this.timers = isEnabled() ?
+                new TimerWheel<>("command-deadlines", 100, TimeUnit.MILLISECONDS, 1024, Runnable::run) :
+                null;
+    }
+
+    /**
+     * Finds if any command has a deadline.
+     */
+    public boolean isEnabled() {
+        if (defaultTimeout > 0L) return true;
+
+        for (long timeout : labelTimeouts.values())
+            if (timeout > 0L) return true;
+
+        return false;
+    }
+
+    /**
+     * Gets the time commands run by a label may run for.
+     * @param label command label.
+     * @return timeout in milliseconds, or 0 if there is no deadline.
+     */
+    public long getTimeout(String label) {
+        Long timeout = labelTimeouts.get(label);
+        return timeout != null ? timeout : defaultTimeout;
+    }
+
+    /**
+     * Gets the number of commands cancelled at their deadline.
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Gets the number of shells abandoned to commands that did not stop when cancelled.
+     */
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    /**
+     * Starts a command's deadline.
+     * @param shell shell running the command.
+     * @param command command being run.
+     * @param label label the command is being run by.
+     * @return deadline, which must be cancelled when the command completes, or null if it has none.
+     */
+    TimerWheel<Runnable>.Timeout start(AbstractCommandShell shell, AsyncCommand command, String label) {
+        long timeout = getTimeout(label);
+        if (timeout <= 0L) return null;
+
+        return timers.schedule(() -> {
+            if (!command.cancel(CancellationToken.Reason.TIMEOUT)) return;
+
+            timeouts.increment();
+
+            timers.schedule(() -> {
+                if (!command.getToken().isBound()) return;
+
+                abandoned.increment();
+                shell.abandon();
+            }, grace, TimeUnit.MILLISECONDS);
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (timers != null) timers.close();
+    }
+
+    /**
+     * Reads command deadlines.  <i>timeout</i> sets the time all commands may run for, in milliseconds (by default,
+     * 0: no deadline), <i>label.&lt;label&gt;</i> the time for one label, and <i>grace</i> the time a cancelled
+     * command has to stop before its shell is abandoned.
+     * @param properties properties to read.
+     * @return command deadlines.
+     */
+    public static CommandDeadlines fromProperties(Properties properties) {
+        Map<String, Long> labelTimeouts = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith("label.")) continue;
+            labelTimeouts.put(key.substring("label.".length()).toLowerCase(), Long.parseLong(properties.getProperty(key)));
+        }
+
+        return new CommandDeadlines(
+                Long.parseLong(properties.getProperty("timeout", "0")),
+                labelTimeouts.isEmpty() ? Collections.emptyMap() : labelTimeouts,
+                Long.parseLong(properties.getProperty("grace", Long.toString(DEFAULT_GRACE)))
+        );
+    }
+}
@@ -0,0 +1,106 @@
+package io.manebot.command;
+
+import io.manebot.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue wait, execution time and error counts of a single command label.
+ */
+public final class CommandMetrics {
+    private final String label;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+
+    CommandMetrics(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the label the command was run by, which may be one of its aliases.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public long getExecutions() {
+        return execution.getCount();
+    }
+
+    /**
+     * Gets the time commands spent queued in their shell before they started.
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Gets the time commands spent in their executor.
+     */
+    public LatencyHistogram getExecution() {
+        return execution;
+    }
+
+    /**
+     * Gets the number of commands that ended with a problem reported to the sender, such as a bad argument or a
+     * missing permission.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Gets the number of commands that ended with an unexpected exception.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the number of commands cancelled at their deadline.
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Gets the number of commands cancelled by their caller.
+     */
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    void recordQueueWait(long nanoseconds) {
+        queueWait.record(nanoseconds);
+    }
+
+    void recordExecution(long nanoseconds) {
+        execution.record(nanoseconds);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordCancellation() {
+        cancellations.increment();
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
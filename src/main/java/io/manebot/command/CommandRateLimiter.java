@@ -0,0 +1,314 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+import io.manebot.user.UserType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate commands are accepted at, per user, per platform and globally, with token buckets.  Each bucket is a
+ * single atomic timestamp (the generic cell rate algorithm): a command is admitted by moving the bucket's theoretical
+ * arrival time forward with a compare-and-set, so there are no locks and no refill timers.
+ *
+ * Limits can be set for all commands, and additionally for individual command labels; a command must be admitted by
+ * both.  A scope with no rate configured is unlimited.
+ */
+public final class CommandRateLimiter {
+    private static final int SWEEP_THRESHOLD = 4096;
+
+    private final Set<UserType> exemptTypes;
+    private final Limits defaultLimits;
+    private final Map<String, Limits> labelLimits;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder[] throttled = new LongAdder[Scope.values().length];
+
+    /**
+     * Creates a rate limiter with no limits.
+     */
+    public CommandRateLimiter() {
+        this(EnumSet.noneOf(UserType.class), new Limits(null, null, null), Collections.emptyMap());
+    }
+
+    private CommandRateLimiter(Set<UserType> exemptTypes, Limits defaultLimits, Map<String, Limits> labelLimits) {
+        this.exemptTypes = exemptTypes;
+        this.defaultLimits = defaultLimits;
+        this.labelLimits = labelLimits;
+
+        for (int i = 0; i < throttled.length; i ++) throttled[i] = new LongAdder();
+    }
+
+    /**
+     * Finds if any limits are configured.
+     */
+    public boolean isEnabled() {
+        return !defaultLimits.isEmpty() || !labelLimits.isEmpty();
+    }
+
+    /**
+     * Finds if any limits are configured for individual command labels.
+     */
+    public boolean hasLabelLimits() {
+        return !labelLimits.isEmpty();
+    }
+
+    /**
+     * Admits a command, taking a token from each bucket it is subject to.
+     * @param user user sending the command.
+     * @param platformId ID of the platform the command was sent on.
+     * @param label command label, or null if label limits do not need to be checked.
+     * @return null if the command is admitted, or the limit it exceeded.
+     */
+    public Throttle acquire(User user, String platformId, String label) {
+        if (user.getType() != null && exemptTypes.contains(user.getType())) return null;
+
+        long now = System.nanoTime();
+        Throttle throttle = null;
+
+        if (label != null) {
+            Limits limits = labelLimits.get(label);
+            if (limits != null) throttle = limits.acquire(user, platformId, now);
+        }
+
+        if (throttle == null) throttle = defaultLimits.acquire(user, platformId, now);
+
+        if (throttle == null) allowed.increment();
+        else throttled[throttle.getScope().ordinal()].increment();
+
+        return throttle;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getThrottled(Scope scope) {
+        return throttled[scope.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of buckets currently tracked for a scope, across all labels.
+     */
+    public int getBucketCount(Scope scope) {
+        int count = defaultLimits.getBucketCount(scope);
+        for (Limits limits : labelLimits.values()) count += limits.getBucketCount(scope);
+        return count;
+    }
+
+    /**
+     * Reads a rate limiter.  <i>user.rate</i>, <i>platform.rate</i> and <i>global.rate</i> set the sustained number
+     * of commands per second for each scope, and the matching <i>.burst</i> keys how many may be sent at once (by
+     * default, one second's worth).  The same keys prefixed by <i>label.&lt;label&gt;.</i> set limits for one command
+     * label.  <i>exempt</i> lists user types that are never limited, and defaults to <i>system</i>.
+     * @param properties properties to read.
+     * @return rate limiter.
+     */
+    public static CommandRateLimiter fromProperties(Properties properties) {
+        Set<UserType> exemptTypes = EnumSet.noneOf(UserType.class);
+        for (String type : properties.getProperty("exempt", "system").split(",")) {
+            if (type.trim().isEmpty()) continue;
+            exemptTypes.add(UserType.valueOf(type.trim().toUpperCase()));
+        }
+
+        Map<String, Properties> labelProperties = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith("label.")) continue;
+
+            String scopedKey = key.substring("label.".length());
+            int scopeSeparator = scopedKey.lastIndexOf('.', scopedKey.lastIndexOf('.') - 1);
+            if (scopeSeparator <= 0) throw new IllegalArgumentException("unknown throttle property: " + key);
+
+            labelProperties.computeIfAbsent(scopedKey.substring(0, scopeSeparator).toLowerCase(), l -> new Properties())
+                    .setProperty(scopedKey.substring(scopeSeparator + 1), properties.getProperty(key));
+        }
+
+        Map<String, Limits> labelLimits = new HashMap<>();
+        labelProperties.forEach((label, scoped) -> labelLimits.put(label, Limits.fromProperties(scoped)));
+
+        return new CommandRateLimiter(exemptTypes, Limits.fromProperties(properties), labelLimits);
+    }
+
+    public enum Scope {
+        USER,
+        PLATFORM,
+        GLOBAL
+    }
+
+    /**
+     * Describes a command that was not admitted.
+     */
+    public static final class Throttle {
+        private final Scope scope;
+        private final long wait;
+        private final boolean first;
+
+        private Throttle(Scope scope, long wait, boolean first) {
+            this.scope = scope;
+            this.wait = wait;
+            this.first = first;
+        }
+
+        /**
+         * Gets the scope of the limit that was exceeded.
+         */
+        public Scope getScope() {
+            return scope;
+        }
+
+        /**
+         * Gets how long until a command would be admitted.
+         */
+        public long getWait(TimeUnit unit) {
+            return unit.convert(wait, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Finds if this is the first command refused by the bucket since it last admitted one, so the sender can be
+         * told once rather than for every command they send while throttled.
+         */
+        public boolean isFirst() {
+            return first;
+        }
+    }
+
+    private static final class Limits {
+        private final Limiter user, platform, global;
+
+        private Limits(Limiter user, Limiter platform, Limiter global) {
+            this.user = user;
+            this.platform = platform;
+            this.global = global;
+        }
+
+        private boolean isEmpty() {
+            return user == null && platform == null && global == null;
+        }
+
+        /**
+         * Takes a token from the user, platform and global buckets, in that order.  A command refused by a later
+         * bucket keeps the tokens it took from earlier ones, so the narrowest scope is checked first.
+         */
+        private Throttle acquire(User user, String platformId, long now) {
+            Throttle throttle;
+
+            if (this.user != null && (throttle = this.user.acquire(user, now)) != null) return throttle;
+            if (platform != null && (throttle = platform.acquire(platformId, now)) != null) return throttle;
+            if (global != null && (throttle = global.acquire(Scope.GLOBAL, now)) != null) return throttle;
+
+            return null;
+        }
+
+        private int getBucketCount(Scope scope) {
+            Limiter limiter;
+
+            switch (scope) {
+                case USER:
+                    limiter = user;
+                    break;
+                case PLATFORM:
+                    limiter = platform;
+                    break;
+                default:
+                    limiter = global;
+            }
+
+            return limiter == null ? 0 : limiter.buckets.size();
+        }
+
+        private static Limits fromProperties(Properties properties) {
+            return new Limits(
+                    Limiter.fromProperties(Scope.USER, properties, "user"),
+                    Limiter.fromProperties(Scope.PLATFORM, properties, "platform"),
+                    Limiter.fromProperties(Scope.GLOBAL, properties, "global")
+            );
+        }
+    }
+
+    private static final class Limiter {
+        private final Scope scope;
+        private final long interval;
+        private final long tolerance;
+        private final ConcurrentMap<Object, Bucket> buckets = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean(false);
+        private volatile int sweepAt = SWEEP_THRESHOLD;
+
+        private Limiter(Scope scope, double rate, int burst) {
+            if (rate <= 0D) throw new IllegalArgumentException(scope.name().toLowerCase() + " rate must be positive");
+            if (burst <= 0) throw new IllegalArgumentException(scope.name().toLowerCase() + " burst must be positive");
+
+            this.scope = scope;
+            this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            this.tolerance = interval * (burst - 1);
+        }
+
+        private Throttle acquire(Object key, long now) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= sweepAt) sweep(now);
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+            }
+
+            long arrival, next;
+            do {
+                arrival = bucket.arrival.get();
+                long start = arrival - now > 0 ? arrival : now;
+                long wait = (start - now) - tolerance;
+
+                if (wait > 0) {
+                    boolean first = bucket.admitted;
+                    bucket.admitted = false;
+                    return new Throttle(scope, wait, first);
+                }
+
+                next = start + interval;
+            } while (!bucket.arrival.compareAndSet(arrival, next));
+
+            bucket.admitted = true;
+            return null;
+        }
+
+        /**
+         * Forgets buckets that have refilled completely; they are equivalent to new buckets.  The next sweep waits
+         * until the map has doubled from what this one left, so a flood of new keys costs each command amortized
+         * constant time rather than a full sweep.
+         */
+        private void sweep(long now) {
+            if (!sweeping.compareAndSet(false, true)) return;
+
+            try {
+                buckets.values().removeIf(bucket -> bucket.arrival.get() - now <= 0);
+                sweepAt = Math.max(SWEEP_THRESHOLD, buckets.size() * 2);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+
+        private static Limiter fromProperties(Scope scope, Properties properties, String prefix) {
+            String rate = properties.getProperty(prefix + ".rate");
+            if (rate == null) return null;
+
+            double perSecond = Double.parseDouble(rate);
+            int burst = Integer.parseInt(properties.getProperty(
+                    prefix + ".burst",
+                    Integer.toString((int) Math.max(1D, Math.ceil(perSecond)))
+            ));
+
+            return new Limiter(scope, perSecond, burst);
+        }
+    }
+
+    private static final class Bucket {
+        private final AtomicLong arrival;
+        private volatile boolean admitted = true;
+
+        private Bucket(long now) {
+            this.arrival = new AtomicLong(now);
+        }
+    }
+}
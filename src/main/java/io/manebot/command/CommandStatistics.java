@@ -0,0 +1,36 @@
+package io.manebot.command;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-label metrics of the commands run in command shells.
+ */
+public final class CommandStatistics {
+    private final Map<String, CommandMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the metrics of a command label.
+     * @param label command label.
+     * @return metrics, or null if no command has been run by that label.
+     */
+    public CommandMetrics getMetrics(String label) {
+        return metrics.get(label);
+    }
+
+    /**
+     * Gets the metrics of every command label that has been run.
+     */
+    public Collection<CommandMetrics> getAllMetrics() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    CommandMetrics getOrCreateMetrics(String label) {
+        CommandMetrics existing = metrics.get(label);
+        if (existing != null) return existing;
+
+        return metrics.computeIfAbsent(label, CommandMetrics::new);
+    }
+}
@@ -5,21 +5,49 @@ import io.manebot.event.EventDispatcher;
 import io.manebot.event.EventExecutionException;
 import io.manebot.event.chat.CommandMessageReceivedEvent;
 import io.manebot.user.User;
-import com.google.common.collect.MapMaker;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 public class DefaultCommandDispatcher<S extends CommandShell> implements CommandDispatcher {
     private final Function<User, S> shellFactory;
     private final EventDispatcher eventDispatcher;
+    private final CommandManager commandManager;
+    private final CommandRateLimiter rateLimiter;
 
     public DefaultCommandDispatcher(Function<User, S> shellFactory,
                                     EventDispatcher eventDispatcher) {
+        this(shellFactory, eventDispatcher, new CommandRateLimiter());
+    }
+
+    public DefaultCommandDispatcher(Function<User, S> shellFactory,
+                                    EventDispatcher eventDispatcher,
+                                    CommandRateLimiter rateLimiter) {
+        this(shellFactory, eventDispatcher, null, rateLimiter);
+    }
+
+    /**
+     * Creates a command dispatcher.
+     * @param shellFactory function getting the shell to run a user's commands in.
+     * @param eventDispatcher event dispatcher to fire command events on.
+     * @param commandManager command manager to resolve labels in before checking their rate limits, or null to limit
+     *                       labels as they are sent.
+     * @param rateLimiter rate limiter to admit commands through.
+     */
+    public DefaultCommandDispatcher(Function<User, S> shellFactory,
+                                    EventDispatcher eventDispatcher,
+                                    CommandManager commandManager,
+                                    CommandRateLimiter rateLimiter) {
         this.shellFactory = shellFactory;
         this.eventDispatcher = eventDispatcher;
+        this.commandManager = commandManager;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public CommandRateLimiter getRateLimiter() {
+        return rateLimiter;
     }
 
     @Override
@@ -44,22 +72,43 @@ public class DefaultCommandDispatcher<S extends CommandShell> implements Command
             throw new RuntimeException(e);
         }
 
-        return getShell(commandMessage.getSender().getUser()).executeAsync(commandMessage);
-    }
+        if (rateLimiter.isEnabled()) {
+            CommandSender sender = commandMessage.getSender();
+            CommandRateLimiter.Throttle throttle = rateLimiter.acquire(
+                    sender.getUser(),
+                    sender.getChat().getPlatform().getId(),
+                    rateLimiter.hasLabelLimits() ? getLabel(commandMessage) : null
+            );
 
-    public static class CachedShellFactory<S extends CommandShell> implements Function<User, S> {
-        private final ConcurrentMap<User, S> executors = new MapMaker().weakKeys().makeMap();
-        private final Function<User, S> function;
+            if (throttle != null) {
+                if (throttle.isFirst())
+                    sender.sendMessage("You are sending commands too quickly; try again in " +
+                            Math.max(1L, (throttle.getWait(TimeUnit.MILLISECONDS) + 999L) / 1000L) + " second(s).");
 
-        public CachedShellFactory(Function<User, S> function) {
-            this.function = function;
+                return CompletableFuture.completedFuture(false);
+            }
         }
 
-        @Override
-        public S apply(User user) {
-            S shell = executors.computeIfAbsent(user, function);
-            while (!shell.isOpen()) executors.put(user, shell = function.apply(user));
-            return shell;
+        S shell = getShell(commandMessage.getSender().getUser());
+        try {
+            return shell.executeAsync(commandMessage);
+        } catch (IllegalStateException ex) {
+            // The shell was closed for idleness between being looked up and used; a fresh one takes the command.
+            if (shell.isOpen()) throw ex;
+            return getShell(commandMessage.getSender().getUser()).executeAsync(commandMessage);
         }
     }
+
+    /**
+     * Gets the label of the command a message runs, resolved to the command's canonical label so its rate limit cannot
+     * be avoided through an abbreviation or alias.
+     */
+    private String getLabel(CommandMessage commandMessage) {
+        String label = ParsedCommand.parse(commandMessage.getMessage()).getLabel();
+
+        if (commandManager instanceof DefaultCommandManager)
+            return ((DefaultCommandManager) commandManager).resolveLabel(label);
+
+        return label;
+    }
 }
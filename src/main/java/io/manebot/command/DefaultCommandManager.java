@@ -1,15 +1,28 @@
 package io.manebot.command;
 
+import io.manebot.command.alias.AliasedCommandExecutor;
 import io.manebot.command.executor.CommandExecutor;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
+/**
+ * Command registry.  Lookups are lock-free; registration and unregistration are serialized, and each rebuilds the
+ * prefix index used to complete abbreviated labels and suggest labels for commands that were not found.  Abbreviated
+ * labels are only suggested, unless abbreviations are set to run the command they complete to.
+ */
 public final class DefaultCommandManager extends CommandManager {
-    private final Map<String, Registration> registrations = new LinkedHashMap<>();
+    private static final int SUGGESTION_LIMIT = 3;
+
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+    private final Map<CommandExecutor, String> canonicalLabels = new ConcurrentHashMap<>();
     private final Object registrationLock = new Object();
+    private volatile LabelIndex index = LabelIndex.EMPTY;
+    private volatile boolean runAbbreviations = false;
+    private final CommandStatistics statistics = new CommandStatistics();
+    private final List<Consumer<String>> registrationListeners = new CopyOnWriteArrayList<>();
 
     @Override
     public Registration registerExecutor(String label, CommandExecutor executor) {
@@ -18,6 +31,9 @@ public final class DefaultCommandManager extends CommandManager {
                 throw new IllegalArgumentException("command " + label + " already exists.");
             Registration registration = new Registration(executor, label);
             registrations.put(label, registration);
+            canonicalLabels.putIfAbsent(executor, label);
+            index = LabelIndex.of(registrations.keySet());
+            registrationListeners.forEach(listener -> listener.accept(label));
             return registration;
         }
     }
@@ -25,10 +41,35 @@ public final class DefaultCommandManager extends CommandManager {
     @Override
     public void unregisterExecutor(String label) {
         synchronized (registrationLock) {
-            registrations.remove(label);
+            Registration removed = registrations.remove(label);
+            if (removed != null) {
+                CommandExecutor executor = removed.getExecutor();
+
+                // The executor's first label is gone; another label it is still registered under takes its place.
+                if (canonicalLabels.remove(executor, label))
+                    registrations.forEach((other, registration) -> {
+                        if (registration.getExecutor() == executor) canonicalLabels.putIfAbsent(executor, other);
+                    });
+
+                index = LabelIndex.of(registrations.keySet());
+                registrationListeners.forEach(listener -> listener.accept(label));
+            }
         }
     }
 
+    /**
+     * Adds a listener called with the label of every command registered or unregistered, while the registration lock
+     * is held.
+     * @param listener listener to add.
+     */
+    public void addRegistrationListener(Consumer<String> listener) {
+        registrationListeners.add(listener);
+    }
+
+    public void removeRegistrationListener(Consumer<String> listener) {
+        registrationListeners.remove(listener);
+    }
+
     @Override
     public CommandExecutor getExecutor(String label) {
         Registration registration = registrations.get(label);
@@ -36,6 +77,71 @@ public final class DefaultCommandManager extends CommandManager {
         return registration.getExecutor();
     }
 
+    /**
+     * Sets if an abbreviated label runs the only command it completes to, rather than suggesting it.
+     * @param runAbbreviations true to run abbreviated commands, false to only suggest them.
+     */
+    public void setRunAbbreviations(boolean runAbbreviations) {
+        this.runAbbreviations = runAbbreviations;
+    }
+
+    public boolean isRunAbbreviations() {
+        return runAbbreviations;
+    }
+
+    /**
+     * Completes an abbreviated command label.
+     * @param abbreviation start of a label.
+     * @return the only registered label starting with the abbreviation, or null if there are none or several.
+     */
+    public String getAbbreviatedLabel(String abbreviation) {
+        if (abbreviation.isEmpty()) return null;
+        return index.complete(abbreviation);
+    }
+
+    /**
+     * Resolves a label to the command it runs: an abbreviation is completed if abbreviations run commands, an alias is
+     * followed to the command it finally runs, and a command registered under several labels is named by the first of
+     * them.
+     * @param label label as sent.
+     * @return canonical label of the command, or the label as sent if it runs no command.
+     */
+    public String resolveLabel(String label) {
+        CommandExecutor executor = getExecutor(label);
+
+        if (executor == null) {
+            String completed = runAbbreviations ? getAbbreviatedLabel(label) : null;
+            if (completed == null) return label;
+            executor = getExecutor(label = completed);
+        }
+
+        if (executor instanceof AliasedCommandExecutor)
+            executor = getExecutor(label = ((AliasedCommandExecutor) executor).getResolvedLabel());
+
+        String canonical = executor != null ? canonicalLabels.get(executor) : null;
+        return canonical != null ? canonical : label;
+    }
+
+    /**
+     * Suggests registered labels close to one that was not found.
+     * @param label label that was not found.
+     * @return up to three labels, nearest first.
+     */
+    public List<String> getSuggestions(String label) {
+        if (label.isEmpty()) return Collections.emptyList();
+
+        // One typo in a short label, two in a longer one.
+        return index.suggest(label, label.length() <= 4 ? 1 : 2, SUGGESTION_LIMIT);
+    }
+
+    /**
+     * Gets the metrics of the commands run in command shells.
+     * @return command statistics.
+     */
+    public CommandStatistics getStatistics() {
+        return statistics;
+    }
+
     @Override
     public Collection<Registration> getRegistrations() {
         return Collections.unmodifiableCollection(registrations.values());
@@ -0,0 +1,127 @@
+package io.manebot.command;
+
+import java.util.*;
+
+/**
+ * Immutable prefix trie over command labels, for completing abbreviations and suggesting labels close to one that was
+ * not found.  Indexes are rebuilt, not modified, when labels are registered or unregistered, so they can be read
+ * without locking.
+ */
+final class LabelIndex {
+    static final LabelIndex EMPTY = new LabelIndex(new Node());
+
+    private final Node root;
+
+    private LabelIndex(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds an index.
+     * @param labels labels to index.
+     * @return index.
+     */
+    static LabelIndex of(Collection<String> labels) {
+        Node root = new Node();
+
+        for (String label : labels) {
+            Node node = root;
+            node.add(label);
+
+            for (int i = 0; i < label.length(); i ++) {
+                node = node.children.computeIfAbsent(label.charAt(i), c -> new Node());
+                node.add(label);
+            }
+
+            node.label = label;
+        }
+
+        return new LabelIndex(root);
+    }
+
+    /**
+     * Completes an abbreviation.
+     * @param prefix abbreviation.
+     * @return the only label starting with the abbreviation, or null if there are none or several.
+     */
+    String complete(String prefix) {
+        Node node = root;
+
+        for (int i = 0; i < prefix.length() && node != null; i ++)
+            node = node.children.get(prefix.charAt(i));
+
+        return node != null && node.count == 1 ? node.any : null;
+    }
+
+    /**
+     * Finds the labels within an edit distance of a label, walking the trie with one row of the edit distance matrix
+     * per node and abandoning branches that can no longer come close enough.
+     *
+     * @param label label to match.
+     * @param maximumDistance greatest number of insertions, deletions and substitutions allowed.
+     * @param limit maximum number of labels to return.
+     * @return closest labels, nearest first.
+     */
+    List<String> suggest(String label, int maximumDistance, int limit) {
+        int[] row = new int[label.length() + 1];
+        for (int i = 0; i < row.length; i ++) row[i] = i;
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Character, Node> child : root.children.entrySet())
+            suggest(child.getValue(), child.getKey(), label, row, maximumDistance, matches);
+
+        Collections.sort(matches);
+
+        List<String> labels = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i ++) labels.add(matches.get(i).label);
+        return labels;
+    }
+
+    private static void suggest(Node node, char c, String label, int[] previous,
+                                int maximumDistance, List<Match> matches) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+
+        int lowest = row[0];
+        for (int i = 1; i < row.length; i ++) {
+            int substitution = previous[i - 1] + (label.charAt(i - 1) == c ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1], previous[i]) + 1);
+            lowest = Math.min(lowest, row[i]);
+        }
+
+        if (node.label != null && row[row.length - 1] <= maximumDistance)
+            matches.add(new Match(node.label, row[row.length - 1]));
+
+        if (lowest > maximumDistance) return;
+
+        for (Map.Entry<Character, Node> child : node.children.entrySet())
+            suggest(child.getValue(), child.getKey(), label, row, maximumDistance, matches);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private String label;
+        private String any;
+        private int count;
+
+        private void add(String label) {
+            if (count ++ == 0) any = label;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final String label;
+        private final int distance;
+
+        private Match(String label, int distance) {
+            this.label = label;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int compare = Integer.compare(distance, other.distance);
+            return compare != 0 ? compare : label.compareTo(other.label);
+        }
+    }
+}
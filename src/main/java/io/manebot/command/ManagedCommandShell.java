@@ -0,0 +1,24 @@
+package io.manebot.command;
+
+/**
+ * A command shell whose lifetime is managed by a {@link ShellLifecycleManager}.
+ */
+public interface ManagedCommandShell extends CommandShell {
+    /**
+     * Finds if the shell has no commands queued or running, so it can be closed without losing any.
+     */
+    boolean isIdle();
+
+    /**
+     * Closes the shell, releasing anything it holds once the commands already sent to it have run.  Commands sent to a
+     * closed shell are refused with an {@link IllegalStateException}.
+     */
+    void close();
+
+    /**
+     * Closes the shell if it is idle.  No command can be sent to the shell between it being found idle and closed, so
+     * every command it accepted has run by the time it closes.
+     * @return true if the shell was closed, false if it had commands queued or running.
+     */
+    boolean closeIfIdle();
+}
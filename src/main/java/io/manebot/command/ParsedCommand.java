@@ -0,0 +1,140 @@
+package io.manebot.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The command label and arguments parsed out of a chat message.
+ */
+final class ParsedCommand {
+    private static final String[] NO_ARGUMENTS = new String[0];
+
+    private final String message;
+    private final int lineStart;
+    private final int lineEnd;
+    private final String label;
+    private final String[] arguments;
+
+    private ParsedCommand(String message, int lineStart, int lineEnd, String label, String[] arguments) {
+        this.message = message;
+        this.lineStart = lineStart;
+        this.lineEnd = lineEnd;
+        this.label = label;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Gets the trimmed line of the message the command was parsed from.
+     */
+    String getLine() {
+        return message.substring(lineStart, lineEnd).trim();
+    }
+
+    /**
+     * Gets the lowercase command label.
+     */
+    String getLabel() {
+        return label;
+    }
+
+    String[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Parses the first line of a message into a command label and its arguments, in a single pass.
+     *
+     * Tokens are separated by runs of whitespace.  Double quotes group whitespace into a single token (<i>""</i> is an
+     * empty argument), and a backslash takes the following character literally, inside or outside of quotes.  An
+     * unterminated quote runs to the end of the line.  Tokens without quotes or escapes are substrings of the message
+     * and are not copied through a buffer.
+     *
+     * @param message message to parse.
+     * @return parsed command.
+     */
+    static ParsedCommand parse(String message) {
+        int end = message.indexOf('\n');
+        return parse(message, 0, end < 0 ? message.length() : end);
+    }
+
+    /**
+     * Parses every line of a message that holds a command, in order.
+     * @param message message to parse.
+     * @return parsed commands; if no line holds a command, the (empty) command parsed from the first line.
+     */
+    static List<ParsedCommand> parseAll(String message) {
+        List<ParsedCommand> commands = new ArrayList<>();
+
+        int start = 0;
+        while (start <= message.length()) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) end = message.length();
+
+            // A quote left open would otherwise keep the carriage return of a CRLF line ending.
+            int lineEnd = end > start && message.charAt(end - 1) == '\r' ? end - 1 : end;
+
+            ParsedCommand command = parse(message, start, lineEnd);
+            if (!command.label.isEmpty()) commands.add(command);
+
+            start = end + 1;
+        }
+
+        return commands.isEmpty() ? Collections.singletonList(parse(message)) : commands;
+    }
+
+    private static ParsedCommand parse(String message, int lineStart, int end) {
+        String label = null;
+        String[] arguments = NO_ARGUMENTS;
+        int count = 0;
+
+        StringBuilder buffer = null;
+        int i = lineStart;
+
+        while (i < end) {
+            if (Character.isWhitespace(message.charAt(i))) {
+                i ++;
+                continue;
+            }
+
+            int start = i;
+            boolean plain = true;
+            boolean quoted = false;
+
+            for (; i < end; i ++) {
+                char c = message.charAt(i);
+                if (!quoted && Character.isWhitespace(c)) break;
+
+                if (c == '"' || (c == '\\' && i + 1 < end)) {
+                    if (plain) {
+                        // First quote or escape in this token: switch to copying it through the buffer.
+                        if (buffer == null) buffer = new StringBuilder();
+                        else buffer.setLength(0);
+
+                        buffer.append(message, start, i);
+                        plain = false;
+                    }
+
+                    if (c == '"') quoted = !quoted;
+                    else buffer.append(message.charAt(++ i));
+                } else if (!plain)
+                    buffer.append(c);
+            }
+
+            String token = plain ? message.substring(start, i) : buffer.toString();
+
+            if (label == null)
+                label = token.toLowerCase();
+            else {
+                if (count == arguments.length) arguments = Arrays.copyOf(arguments, Math.max(4, count * 2));
+                arguments[count ++] = token;
+            }
+        }
+
+        if (label == null) label = "";
+        if (count < arguments.length) arguments = Arrays.copyOf(arguments, count);
+
+        return new ParsedCommand(message, lineStart, end, label, arguments);
+    }
+}
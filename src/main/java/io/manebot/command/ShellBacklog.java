@@ -0,0 +1,207 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The commands waiting to run in one user's shell, bounded and handled on overflow according to a backlog policy.
+ */
+final class ShellBacklog {
+    private final User user;
+    private final ShellBacklogPolicy policy;
+    private final ShellBacklogStatistics statistics;
+
+    private final Deque<AsyncCommand> commands = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    ShellBacklog(User user, ShellBacklogPolicy policy, ShellBacklogStatistics statistics) {
+        this.user = user;
+        this.policy = policy;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Queues a command, applying the policy's overflow rule if the backlog is full.
+     * A command dropped to make room has its future completed with false.
+     *
+     * @param commandMessage command to queue.
+     * @return the queued command, or the identical waiting command it was merged into.
+     * @throws IllegalStateException if the command was refused.
+     */
+    Offer offer(CommandMessage commandMessage) throws IllegalStateException {
+        ShellBacklogPolicy.Rule rule = policy.getRule(user, commandMessage);
+        AsyncCommand dropped = null;
+        AsyncCommand command;
+
+        lock.lock();
+        try {
+            if (commands.size() >= rule.getSize()) {
+                switch (rule.getOverflow()) {
+                    case DROP_OLDEST:
+                        dropped = commands.poll();
+                        statistics.recordDropped();
+                        break;
+                    case COALESCE_DUPLICATES:
+                        for (AsyncCommand queued : commands) {
+                            if (isDuplicate(queued.getMessage(), commandMessage)) {
+                                statistics.recordCoalesced();
+                                return new Offer(queued, true);
+                            }
+                        }
+
+                        statistics.recordRejected();
+                        throw new IllegalStateException("shell queue is full");
+                    case BLOCK:
+                        statistics.recordBlocked();
+
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(rule.getTimeout());
+                        try {
+                            while (commands.size() >= rule.getSize()) {
+                                if (remaining <= 0L) {
+                                    statistics.recordRejected();
+                                    throw new IllegalStateException("shell queue is full");
+                                }
+
+                                remaining = notFull.awaitNanos(remaining);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            statistics.recordRejected();
+                            throw new IllegalStateException("interrupted waiting for shell queue", e);
+                        }
+
+                        break;
+                    case REJECT:
+                    default:
+                        statistics.recordRejected();
+                        throw new IllegalStateException("shell queue is full");
+                }
+            }
+
+            commands.add(command = new AsyncCommand(commandMessage));
+            statistics.recordAccepted();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (dropped != null) dropped.getFuture().complete(false);
+
+        return new Offer(command, false);
+    }
+
+    /**
+     * Takes the next command without waiting.
+     * @return next command, or null if the backlog is empty.
+     */
+    AsyncCommand poll() {
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next command, waiting as long as it takes for one to be queued.
+     * @return next command.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    AsyncCommand take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (commands.isEmpty()) notEmpty.await();
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a command that was queued but will never be taken.
+     * @param command command to remove.
+     * @return true if the command was removed, false if it had already been taken.
+     */
+    boolean remove(AsyncCommand command) {
+        lock.lock();
+        try {
+            if (!commands.removeFirstOccurrence(command)) return false;
+
+            statistics.recordDequeued();
+            notFull.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return commands.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AsyncCommand dequeue() {
+        AsyncCommand command = commands.poll();
+
+        if (command != null) {
+            statistics.recordDequeued();
+            notFull.signal();
+        }
+
+        return command;
+    }
+
+    private static boolean isDuplicate(CommandMessage queued, CommandMessage submitted) {
+        return queued.getSender().getChat() == submitted.getSender().getChat() &&
+                queued.getMessage().equals(submitted.getMessage());
+    }
+
+    /**
+     * The outcome of queueing a command.
+     */
+    static final class Offer {
+        private final AsyncCommand command;
+        private final boolean coalesced;
+
+        private Offer(AsyncCommand command, boolean coalesced) {
+            this.command = command;
+            this.coalesced = coalesced;
+        }
+
+        /**
+         * Gets the queued command, or the waiting command it was merged into.
+         */
+        AsyncCommand getCommand() {
+            return command;
+        }
+
+        /**
+         * Finds if the command was merged into a waiting command, which belongs to the caller that queued it: it is
+         * already tracked, and must not be removed or cancelled on the merged caller's behalf.
+         */
+        boolean isCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * Gets a future for the merged caller, completed with the waiting command's result.  Cancelling it does not
+         * cancel the waiting command.
+         */
+        CompletableFuture<Boolean> getCoalescedFuture() {
+            return command.getFuture().copy();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Decides how many commands a user's shell may hold waiting to run, and what happens to a command submitted while the
+ * shell is full.  Rules can be set per platform and per user type; a platform rule wins over a user type rule, which
+ * wins over the default rule.
+ */
+public final class ShellBacklogPolicy {
+    public static final int DEFAULT_SIZE = 3;
+    public static final Overflow DEFAULT_OVERFLOW = Overflow.REJECT;
+    public static final long DEFAULT_TIMEOUT = 5_000L;
+
+    private final Rule defaultRule;
+    private final Map<String, Rule> userTypeRules;
+    private final Map<String, Rule> platformRules;
+
+    public ShellBacklogPolicy() {
+        this(new Rule(DEFAULT_SIZE, DEFAULT_OVERFLOW, DEFAULT_TIMEOUT), Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Creates a backlog policy.
+     * @param defaultRule rule for commands that no other rule applies to.
+     * @param userTypeRules rules by lowercase user type name (e.g. <i>common</i>).
+     * @param platformRules rules by platform ID.
+     */
+    public ShellBacklogPolicy(Rule defaultRule, Map<String, Rule> userTypeRules, Map<String, Rule> platformRules) {
+        this.defaultRule = defaultRule;
+        this.userTypeRules = userTypeRules;
+        this.platformRules = platformRules;
+    }
+
+    public Rule getDefaultRule() {
+        return defaultRule;
+    }
+
+    /**
+     * Finds the rule for a command.
+     * @param user user whose shell the command is submitted to.
+     * @param commandMessage command being submitted.
+     * @return rule to apply.
+     */
+    public Rule getRule(User user, CommandMessage commandMessage) {
+        if (!platformRules.isEmpty()) {
+            Rule rule = platformRules.get(commandMessage.getSender().getChat().getPlatform().getId());
+            if (rule != null) return rule;
+        }
+
+        if (!userTypeRules.isEmpty() && user.getType() != null) {
+            Rule rule = userTypeRules.get(user.getType().name().toLowerCase());
+            if (rule != null) return rule;
+        }
+
+        return defaultRule;
+    }
+
+    /**
+     * Reads a backlog policy.  <i>size</i>, <i>overflow</i> and <i>timeout</i> (milliseconds, for the block overflow
+     * policy) set the default rule; the same keys prefixed by <i>user.&lt;type&gt;.</i> or
+     * <i>platform.&lt;id&gt;.</i> override it for one user type or platform.
+     * @param properties properties to read.
+     * @return backlog policy.
+     */
+    public static ShellBacklogPolicy fromProperties(Properties properties) {
+        ShellBacklogPolicy defaultPolicy = new ShellBacklogPolicy();
+        Rule defaultRule = Rule.fromProperties(properties, defaultPolicy.getDefaultRule());
+
+        Map<String, Properties> userTypeProperties = new HashMap<>();
+        Map<String, Properties> platformProperties = new HashMap<>();
+
+        for (String key : properties.stringPropertyNames()) {
+            Map<String, Properties> scope;
+            String scopedKey;
+
+            if (key.startsWith("user.")) {
+                scope = userTypeProperties;
+                scopedKey = key.substring("user.".length());
+            } else if (key.startsWith("platform.")) {
+                scope = platformProperties;
+                scopedKey = key.substring("platform.".length());
+            } else continue;
+
+            int separator = scopedKey.lastIndexOf('.');
+            if (separator <= 0) throw new IllegalArgumentException("unknown backlog property: " + key);
+
+            String name = scopedKey.substring(0, separator);
+            if (scope == userTypeProperties) name = name.toLowerCase();
+
+            scope.computeIfAbsent(name, scopeName -> new Properties())
+                    .setProperty(scopedKey.substring(separator + 1), properties.getProperty(key));
+        }
+
+        Map<String, Rule> userTypeRules = new HashMap<>();
+        userTypeProperties.forEach((type, scoped) -> userTypeRules.put(type, Rule.fromProperties(scoped, defaultRule)));
+
+        Map<String, Rule> platformRules = new HashMap<>();
+        platformProperties.forEach((id, scoped) -> platformRules.put(id, Rule.fromProperties(scoped, defaultRule)));
+
+        return new ShellBacklogPolicy(defaultRule, userTypeRules, platformRules);
+    }
+
+    public static final class Rule {
+        private final int size;
+        private final Overflow overflow;
+        private final long timeout;
+
+        /**
+         * Creates a backlog rule.
+         * @param size maximum number of commands waiting in a shell.
+         * @param overflow what to do with a command submitted to a full shell.
+         * @param timeout time to wait for space with the block overflow policy, in milliseconds.
+         */
+        public Rule(int size, Overflow overflow, long timeout) {
+            if (size <= 0) throw new IllegalArgumentException("size must be positive");
+            if (timeout < 0) throw new IllegalArgumentException("timeout must not be negative");
+
+            this.size = size;
+            this.overflow = overflow;
+            this.timeout = timeout;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Overflow getOverflow() {
+            return overflow;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        private static Rule fromProperties(Properties properties, Rule defaults) {
+            return new Rule(
+                    Integer.parseInt(properties.getProperty("size", Integer.toString(defaults.size))),
+                    properties.containsKey("overflow") ?
+                            Overflow.fromString(properties.getProperty("overflow")) :
+                            defaults.overflow,
+                    Long.parseLong(properties.getProperty("timeout", Long.toString(defaults.timeout)))
+            );
+        }
+    }
+
+    public enum Overflow {
+        /**
+         * Refuse the new command.
+         */
+        REJECT,
+
+        /**
+         * Discard the oldest waiting command to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Merge the new command into an identical command already waiting from the same chat, if there is one;
+         * otherwise, refuse it.
+         */
+        COALESCE_DUPLICATES,
+
+        /**
+         * Hold the submitting thread until there is room, up to the rule's timeout; then refuse the command.
+         */
+        BLOCK;
+
+        public static Overflow fromString(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+}
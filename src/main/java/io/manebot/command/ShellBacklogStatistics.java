@@ -0,0 +1,95 @@
+package io.manebot.command;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happens to commands submitted to shell backlogs, across all shells.
+ */
+public final class ShellBacklogStatistics {
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong maximumQueued = new AtomicLong();
+
+    /**
+     * Gets the number of commands accepted into a backlog, including those that had to wait for room.
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Gets the number of commands refused because a backlog was full.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of waiting commands discarded to make room for newer ones.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of commands merged into an identical waiting command.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of submissions that had to wait for room in a backlog.
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets the number of commands currently waiting in all backlogs.
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the highest number of commands seen waiting in all backlogs at once.
+     */
+    public long getMaximumQueued() {
+        return maximumQueued.get();
+    }
+
+    void recordAccepted() {
+        accepted.increment();
+
+        long current = queued.incrementAndGet(), maximum;
+        while (current > (maximum = maximumQueued.get()))
+            if (maximumQueued.compareAndSet(maximum, current)) break;
+    }
+
+    void recordDequeued() {
+        queued.decrementAndGet();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+        queued.decrementAndGet();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordBlocked() {
+        blocked.increment();
+    }
+}
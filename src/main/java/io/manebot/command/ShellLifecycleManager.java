@@ -0,0 +1,241 @@
+package io.manebot.command;
+
+import io.manebot.lambda.ThrowingFunction;
+import io.manebot.user.User;
+import io.manebot.util.TimerWheel;
+
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Creates, caches and closes users' command shells.
+ *
+ * Concurrent requests for the same user's shell share a single creation, and creations for different users run in
+ * parallel on the creation executor.  Shells that have been idle for the idle timeout are closed by one timer wheel
+ * shared by every shell, except that the most recently used shells are kept open, up to the warm size, so returning
+ * users find their shell already started.  Shells can also be started ahead of their first command.
+ *
+ * @param <S> type of shell managed.
+ */
+public final class ShellLifecycleManager<S extends ManagedCommandShell> implements Function<User, S>, AutoCloseable {
+    private static final int CREATE_ATTEMPTS = 2;
+
+    private final ThrowingFunction<User, S, Exception> factory;
+    private final Executor creator;
+    private final long idleTimeout;
+    private final int warm;
+
+    private final ConcurrentMap<User, Slot> slots = new ConcurrentHashMap<>();
+    private final TimerWheel<Slot> timers;
+    private final AtomicInteger creating = new AtomicInteger(0);
+    private final AtomicInteger live = new AtomicInteger(0);
+
+    /**
+     * Creates a shell lifecycle manager.
+     * @param factory function creating a started shell for a user.
+     * @param creator executor to run the factory on, such as a pool of processes allowed to start shells as any user.
+     * @param idleTimeout time a shell may go unused before it is closed.
+     * @param unit unit of the idle timeout.
+     * @param warm number of most recently used shells kept open however long they have been idle.
+     */
+    public ShellLifecycleManager(ThrowingFunction<User, S, Exception> factory, Executor creator,
+                                 long idleTimeout, TimeUnit unit, int warm) {
+        if (idleTimeout <= 0L) throw new IllegalArgumentException("idle timeout must be positive");
+        if (warm < 0) throw new IllegalArgumentException("warm size must not be negative");
+
+        this.factory = factory;
+        this.creator = creator;
+        this.idleTimeout = unit.toNanos(idleTimeout);
+        this.warm = warm;
+
+        // One-second ticks; shells idle out in minutes, so most timeouts fire within a round or two.
+        this.timers = new TimerWheel<>("shell-lifecycle", 1, TimeUnit.SECONDS, 512, this::expire);
+    }
+
+    /**
+     * Gets a user's shell, creating and starting it if the user has no open shell.
+     * @param user user to get the shell of.
+     * @return open shell.
+     */
+    @Override
+    public S apply(User user) {
+        for (int attempt = 0; ; attempt ++) {
+            Slot slot = slots.get(user);
+            if (slot == null) slot = getOrStart(user);
+
+            S shell;
+            try {
+                shell = slot.future.join();
+            } catch (CompletionException ex) {
+                remove(slot);
+
+                if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+                throw new IllegalStateException("Problem creating shell for " + user.getName(), ex.getCause());
+            }
+
+            slot.lastUsed = System.nanoTime();
+            if (shell.isOpen()) return shell;
+
+            // The shell stopped on its own; replace it.
+            remove(slot);
+            if (attempt + 1 >= CREATE_ATTEMPTS)
+                throw new IllegalStateException("shell for " + user.getName() + " did not stay open");
+        }
+    }
+
+    /**
+     * Starts shells ahead of their users' first commands.
+     * @param users users to start shells for.
+     */
+    public void prestart(Collection<User> users) {
+        for (User user : users) getOrStart(user);
+    }
+
+    /**
+     * Gets a user's slot, starting the creation of their shell if they have none.  Only the request that installs the
+     * slot starts the creation.
+     */
+    private Slot getOrStart(User user) {
+        Slot slot = new Slot(user);
+
+        Slot existing = slots.putIfAbsent(user, slot);
+        if (existing != null) return existing;
+
+        slot.start();
+        return slot;
+    }
+
+    /**
+     * Gets the number of open shells.
+     */
+    public int getLive() {
+        return live.get();
+    }
+
+    /**
+     * Gets the number of open shells with no commands queued or running.
+     */
+    public int getIdle() {
+        int idle = 0;
+        for (Slot slot : slots.values()) {
+            S shell = slot.getShell();
+            if (shell != null && shell.isIdle()) idle ++;
+        }
+        return idle;
+    }
+
+    /**
+     * Gets the number of shells being created.
+     */
+    public int getCreating() {
+        return creating.get();
+    }
+
+    public int getWarm() {
+        return warm;
+    }
+
+    public long getIdleTimeout(TimeUnit unit) {
+        return unit.convert(idleTimeout, TimeUnit.NANOSECONDS);
+    }
+
+    private void expire(Slot slot) {
+        S shell = slot.getShell();
+        if (shell == null || slots.get(slot.user) != slot) return;
+
+        if (!shell.isOpen()) {
+            remove(slot);
+            return;
+        }
+
+        long idle = System.nanoTime() - slot.lastUsed;
+        if (idle < idleTimeout) {
+            timers.schedule(slot, idleTimeout - idle, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        if (!shell.isIdle() || isWarm(slot)) {
+            timers.schedule(slot, idleTimeout, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        // A command may have been sent to the shell since it was found idle.  Once closed, the shell refuses commands
+        // and reports itself closed, so its user's next command goes to a new shell after every command sent to this
+        // one has run.
+        if (!shell.closeIfIdle()) {
+            timers.schedule(slot, idleTimeout, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        remove(slot);
+    }
+
+    /**
+     * Finds if a shell is one of the most recently used, up to the warm size.
+     */
+    private boolean isWarm(Slot slot) {
+        if (warm <= 0) return false;
+
+        long lastUsed = slot.lastUsed;
+        int newer = 0;
+        for (Slot other : slots.values())
+            if (other != slot && other.lastUsed - lastUsed > 0L && ++ newer >= warm) return false;
+
+        return true;
+    }
+
+    private boolean remove(Slot slot) {
+        if (!slots.remove(slot.user, slot)) return false;
+        if (slot.getShell() != null) live.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stops closing idle shells.  Open shells are left open.
+     */
+    @Override
+    public void close() {
+        timers.close();
+    }
+
+    private final class Slot {
+        private final User user;
+        private final CompletableFuture<S> future = new CompletableFuture<>();
+        private volatile long lastUsed = System.nanoTime();
+
+        private Slot(User user) {
+            this.user = user;
+        }
+
+        private void start() {
+            creating.incrementAndGet();
+            try {
+                creator.execute(this::create);
+            } catch (RejectedExecutionException ex) {
+                creating.decrementAndGet();
+                future.completeExceptionally(ex);
+                slots.remove(user, this);
+            }
+        }
+
+        private void create() {
+            try {
+                S shell = factory.applyChecked(user);
+                live.incrementAndGet();
+                future.complete(shell);
+                timers.schedule(this, idleTimeout, TimeUnit.NANOSECONDS);
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+                slots.remove(user, this);
+            } finally {
+                creating.decrementAndGet();
+            }
+        }
+
+        private S getShell() {
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        }
+    }
+}
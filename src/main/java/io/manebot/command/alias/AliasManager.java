@@ -1,23 +1,29 @@
 package io.manebot.command.alias;
 
-import io.manebot.command.CommandManager;
+import io.manebot.command.DefaultCommandManager;
 import io.manebot.command.executor.CommandExecutor;
 import io.manebot.database.Database;
 import io.manebot.database.model.CommandAlias;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class AliasManager {
     private final Database database;
-    private final CommandManager commandManager;
-    private final Map<String, CommandExecutor> registeredExecutors = new LinkedHashMap<>();
+    private final DefaultCommandManager commandManager;
+    private final Map<String, AliasedCommandExecutor> registeredExecutors = new ConcurrentHashMap<>();
 
-    public AliasManager(Database database, CommandManager commandManager) {
+    public AliasManager(Database database, DefaultCommandManager commandManager) {
         this.database = database;
         this.commandManager = commandManager;
+
+        // Resolved aliases only go stale when a label they run through changes.
+        commandManager.addRegistrationListener(label ->
+                registeredExecutors.values().forEach(executor -> executor.invalidate(label))
+        );
     }
 
     public List<CommandAlias> getAliases() {
@@ -27,7 +33,25 @@ public class AliasManager {
         });
     }
 
-    public CommandAlias createAlias(String label, String alias) {
+    /**
+     * Creates an alias.
+     * @param label label of the alias.
+     * @param alias command line the alias runs.
+     * @return created alias.
+     * @throws IllegalArgumentException if the alias would run itself through a chain of aliases.
+     */
+    public CommandAlias createAlias(String label, String alias) throws IllegalArgumentException {
+        String target = alias.split(" ")[0].toLowerCase();
+        Set<String> visited = new HashSet<>();
+        while (visited.add(target)) {
+            if (target.equalsIgnoreCase(label))
+                throw new IllegalArgumentException("Alias \"" + label + "\" would refer back to itself.");
+
+            CommandExecutor executor = commandManager.getExecutor(target);
+            if (!(executor instanceof AliasedCommandExecutor)) break;
+            target = ((AliasedCommandExecutor) executor).getTargetLabel();
+        }
+
         try {
             return database.executeTransaction(s -> {
                 CommandAlias newAlias = new CommandAlias(database, label, alias);
@@ -54,7 +78,7 @@ public class AliasManager {
     }
 
     public void unregisterAliases() {
-        Iterator<Map.Entry<String, CommandExecutor>> it = registeredExecutors.entrySet().iterator();
+        Iterator<Map.Entry<String, AliasedCommandExecutor>> it = registeredExecutors.entrySet().iterator();
         while (it.hasNext()) {
             commandManager.unregisterExecutor(it.next().getKey());
             it.remove();
@@ -63,7 +87,7 @@ public class AliasManager {
 
     public void registerAliases() {
         for (CommandAlias alias : getAliases()) {
-            CommandExecutor executor;
+            AliasedCommandExecutor executor;
 
             try {
                 commandManager.registerExecutor(
@@ -77,6 +101,20 @@ public class AliasManager {
 
             registeredExecutors.put(alias.getLabel(), executor);
         }
+
+        // Resolve every chain up front, now that all of the aliases it could run through are registered.
+        Iterator<Map.Entry<String, AliasedCommandExecutor>> it = registeredExecutors.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, AliasedCommandExecutor> entry = it.next();
+
+            try {
+                entry.getValue().compile();
+            } catch (IllegalStateException ex) {
+                Logger.getGlobal().log(Level.WARNING, "Failed to register alias \"" + entry.getKey() + "\"", ex);
+                commandManager.unregisterExecutor(entry.getKey());
+                it.remove();
+            }
+        }
     }
 
     public void reregisterAliases() {
@@ -7,74 +7,158 @@ import io.manebot.command.exception.CommandExecutionException;
 import io.manebot.command.executor.CommandExecutor;
 import io.manebot.database.model.CommandAlias;
 
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AliasedCommandExecutor implements CommandExecutor {
     private final CommandManager commandManager;
     private final CommandAlias alias;
+    private final String targetLabel;
+    private final String[] targetArguments;
+
+    private final AtomicReference<Target> target = new AtomicReference<>();
+    private final AtomicLong invalidations = new AtomicLong(0L);
 
     public AliasedCommandExecutor(CommandManager commandManager, CommandAlias alias) {
         this.commandManager = commandManager;
         this.alias = alias;
-    }
 
-    private String[] getTargetArguments() {
         String[] path = alias.getAlias().split(" ");
-        if (path.length <= 1) return new String[0];
-        String[] args = new String[path.length - 1];
-        System.arraycopy(path, 1, args, 0, args.length);
-        return args;
+        this.targetLabel = path[0].toLowerCase();
+        this.targetArguments = Arrays.copyOfRange(path, 1, path.length);
     }
 
-    private String[] buildArguments(String[] append) {
-        String[] target = getTargetArguments();
-        if (target.length > 0) {
-            String[] appended = new String[target.length + append.length];
-            System.arraycopy(target, 0, appended, 0, target.length);
-            System.arraycopy(append, 0, appended, target.length, append.length);
-            return appended;
-        } else return append;
+    /**
+     * Gets the label this alias runs, which may itself be an alias.
+     */
+    public String getTargetLabel() {
+        return targetLabel;
     }
 
-    private String getTargetLabel() {
-        return alias.getAlias().split(" ")[0].toLowerCase();
+    /**
+     * Gets the label of the command this alias finally runs, following aliases of aliases.
+     * @return resolved label, or this alias's own label if the chain refers back to itself.
+     */
+    public String getResolvedLabel() {
+        try {
+            return getTarget().label;
+        } catch (IllegalStateException ex) {
+            return alias.getLabel();
+        }
     }
 
-    private CommandExecutor getTargetCommand() {
-        return commandManager.getExecutor(getTargetLabel());
+    /**
+     * Resolves the chain of aliases this alias runs through down to the command it finally runs.
+     * @return resolved target.
+     * @throws IllegalStateException if the chain runs through the same alias twice.
+     */
+    Target compile() throws IllegalStateException {
+        long generation = invalidations.get();
+
+        Set<AliasedCommandExecutor> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(this);
+
+        List<String> labels = new ArrayList<>();
+        String label = targetLabel;
+        String[] arguments = targetArguments;
+
+        CommandExecutor executor;
+        while (true) {
+            labels.add(label);
+            executor = commandManager.getExecutor(label);
+            if (!(executor instanceof AliasedCommandExecutor)) break;
+
+            AliasedCommandExecutor next = (AliasedCommandExecutor) executor;
+            if (!visited.add(next))
+                throw new IllegalStateException("Alias \"" + alias.getLabel() + "\" refers back to itself.");
+
+            label = next.targetLabel;
+            arguments = concat(next.targetArguments, arguments);
+        }
+
+        Target compiled = new Target(label, arguments, executor, labels);
+        target.set(compiled);
+
+        // A label registered or unregistered during compilation may not be reflected in it.
+        if (invalidations.get() != generation) target.compareAndSet(compiled, null);
+
+        return compiled;
+    }
+
+    /**
+     * Discards the resolved target if a label it was resolved through was registered or unregistered.  A target being
+     * resolved at the same time is not kept, since it may have been resolved through the old registration.
+     * @param label changed label.
+     */
+    void invalidate(String label) {
+        invalidations.incrementAndGet();
+
+        Target target = this.target.get();
+        if (target != null && target.labels.contains(label)) this.target.compareAndSet(target, null);
+    }
+
+    private Target getTarget() {
+        Target target = this.target.get();
+        return target != null ? target : compile();
     }
 
     @Override
     public void execute(CommandSender sender, String label, String[] args) throws CommandExecutionException {
-        CommandExecutor executor = getTargetCommand();
-        if (executor == null)
-            throw new CommandArgumentException("Alias target \"" + getTargetLabel() + "\" was not found.");
+        Target target = getTarget();
+        if (target.executor == null)
+            throw new CommandArgumentException("Alias target \"" + target.label + "\" was not found.");
 
-        executor.execute(sender, label, buildArguments(args));
+        target.executor.execute(sender, label, concat(target.arguments, args));
     }
 
     @Override
     public String getDescription() {
-        CommandExecutor executor = getTargetCommand();
-        if (executor != null)
-            return "Alias of " + getTargetLabel() + ": " + getTargetCommand().getDescription();
+        Target target = getTarget();
+        if (target.executor != null)
+            return "Alias of " + targetLabel + ": " + target.executor.getDescription();
         else
-            return "Alias of " + getTargetLabel();
+            return "Alias of " + targetLabel;
     }
 
     @Override
     public List<String> getHelp(CommandSender sender, String label, String[] args) throws CommandExecutionException {
-        CommandExecutor executor = getTargetCommand();
-        if (executor != null)
-            return executor.getHelp(sender, label, buildArguments(args));
+        Target target = getTarget();
+        if (target.executor != null)
+            return target.executor.getHelp(sender, label, concat(target.arguments, args));
         else
             return Collections.emptyList();
     }
 
     @Override
     public boolean isBuffered() {
-        CommandExecutor executor = getTargetCommand();
-        return executor == null || executor.isBuffered();
+        Target target = getTarget();
+        return target.executor == null || target.executor.isBuffered();
+    }
+
+    private static String[] concat(String[] prefix, String[] append) {
+        if (prefix.length == 0) return append;
+
+        String[] appended = new String[prefix.length + append.length];
+        System.arraycopy(prefix, 0, appended, 0, prefix.length);
+        System.arraycopy(append, 0, appended, prefix.length, append.length);
+        return appended;
+    }
+
+    /**
+     * The command an alias finally runs, and the arguments it is run with ahead of the caller's.
+     */
+    static final class Target {
+        private final String label;
+        private final String[] arguments;
+        private final CommandExecutor executor;
+        private final List<String> labels;
+
+        private Target(String label, String[] arguments, CommandExecutor executor, List<String> labels) {
+            this.label = label;
+            this.arguments = arguments;
+            this.executor = executor;
+            this.labels = labels;
+        }
     }
 }
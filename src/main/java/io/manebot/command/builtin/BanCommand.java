@@ -8,6 +8,7 @@ import io.manebot.command.executor.chained.argument.CommandArgumentFollowing;
 import io.manebot.command.executor.chained.argument.CommandArgumentLabel;
 import io.manebot.command.executor.chained.argument.CommandArgumentPage;
 import io.manebot.command.executor.chained.argument.CommandArgumentString;
+import io.manebot.user.BanIndex;
 import io.manebot.user.User;
 import io.manebot.user.UserBan;
 import io.manebot.user.UserManager;
@@ -17,9 +18,11 @@ import java.util.Date;
 
 public class BanCommand extends AnnotatedCommandExecutor {
     private final UserManager userManager;
+    private final BanIndex banIndex;
 
-    public BanCommand(UserManager userManager) {
+    public BanCommand(UserManager userManager, BanIndex banIndex) {
         this.userManager = userManager;
+        this.banIndex = banIndex;
     }
 
     @Command(description = "Bans a user", permission = "system.user.ban")
@@ -37,6 +40,7 @@ public class BanCommand extends AnnotatedCommandExecutor {
         User user = userManager.getUserByDisplayName(username);
         if (user == null) throw new CommandArgumentException("User not found");
         UserBan ban = user.ban(reason, new Date(System.currentTimeMillis() + (calculateNextBanLength(user)*1000L)));
+        banIndex.add(ban);
         sender.sendMessage(user.getDisplayName() + " banned until " + ban.getEnd() + ".");
     }
 
@@ -0,0 +1,88 @@
+package io.manebot.command.builtin;
+
+import io.manebot.chat.TextStyle;
+import io.manebot.command.CommandSender;
+import io.manebot.command.exception.CommandExecutionException;
+import io.manebot.command.executor.chained.AnnotatedCommandExecutor;
+import io.manebot.command.executor.chained.argument.CommandArgumentLabel;
+import io.manebot.command.executor.chained.argument.CommandArgumentPage;
+import io.manebot.event.AsyncEventExecutor;
+import io.manebot.event.DefaultEventManager;
+import io.manebot.event.ListenerMetrics;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class EventCommand extends AnnotatedCommandExecutor {
+    private static final String MILLISECONDS_FORMAT = "%,.3f";
+
+    private final DefaultEventManager eventManager;
+
+    public EventCommand(DefaultEventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    @Command(description = "Gets asynchronous event executor status", permission = "system.event.status")
+    public void status(CommandSender sender) throws CommandExecutionException {
+        AsyncEventExecutor executor = eventManager.getAsyncExecutor();
+
+        sender.sendDetails(builder -> builder.name("Event executor").key("async")
+                .item("Workers", executor.getActiveCount() + " active, " +
+                        executor.getPoolSize() + " live, " +
+                        executor.getMaximumPoolSize() + " max" +
+                        (executor.isVirtual() ? " (virtual)" : ""))
+                .item("Queue", executor.getQueueDepth() + "/" + executor.getQueueCapacity() +
+                        " (" + eventManager.getActivePartitions() + " ordered partitions)")
+                .item("Overflow", executor.getOverflowPolicy().name().toLowerCase().replace('_', '-') +
+                        " (" +
+                        executor.getRejectedCount() + " rejected, " +
+                        executor.getDroppedCount() + " dropped, " +
+                        executor.getCallerRunsCount() + " caller-runs" +
+                        ")")
+                .item("Coalesced", eventManager.getCoalescedCount() + " merged, " +
+                        eventManager.getCoalescingWindows() + " windows open")
+                .item("Completed", Long.toString(executor.getCompletedTaskCount()))
+        );
+    }
+
+    @Command(description = "Lists the slowest event handlers", permission = "system.event.listeners")
+    public void listeners(CommandSender sender,
+                          @CommandArgumentLabel.Argument(label = "listeners") String listeners,
+                          @CommandArgumentPage.Argument() int page)
+            throws CommandExecutionException {
+        sender.sendList(ListenerMetrics.class, builder -> builder
+                .direct(eventManager.getListenerMetrics().stream()
+                        .filter(metrics -> metrics.getCalls() > 0)
+                        .sorted(Comparator.comparingLong(
+                                (ListenerMetrics metrics) -> metrics.getLatency().getPercentile(99D, TimeUnit.NANOSECONDS)
+                        ).reversed())
+                        .collect(Collectors.toList()))
+                .page(page)
+                .responder((textBuilder, metrics) -> textBuilder
+                        .append(metrics.toString(), EnumSet.of(TextStyle.ITALICS))
+                        .append(" (" + metrics.getEventClass().getSimpleName() + "): " +
+                                String.format(MILLISECONDS_FORMAT,
+                                        metrics.getLatency().getPercentile(50D, TimeUnit.MICROSECONDS) / 1000D) +
+                                "ms p50, " +
+                                String.format(MILLISECONDS_FORMAT,
+                                        metrics.getLatency().getPercentile(99D, TimeUnit.MICROSECONDS) / 1000D) +
+                                "ms p99, " +
+                                String.format(MILLISECONDS_FORMAT,
+                                        metrics.getLatency().getMax(TimeUnit.MICROSECONDS) / 1000D) +
+                                "ms max, " +
+                                metrics.getCalls() + " calls, " + metrics.getFailures() + " failed" +
+                                (eventManager.getIsolation() != null ?
+                                        ", " + metrics.getTimeouts() + " timed out, " +
+                                                metrics.getSkipped() + " skipped (" +
+                                                metrics.getCircuitBreaker().getState().name().toLowerCase() + ")" :
+                                        "")))
+        );
+    }
+
+    @Override
+    public String getDescription() {
+        return "Manages event dispatching";
+    }
+}
@@ -0,0 +1,151 @@
+package io.manebot.command.builtin;
+
+import io.manebot.chat.TextStyle;
+import io.manebot.command.CommandDeadlines;
+import io.manebot.command.CommandMetrics;
+import io.manebot.command.CommandRateLimiter;
+import io.manebot.command.CommandSender;
+import io.manebot.command.CommandStatistics;
+import io.manebot.command.ShellBacklogStatistics;
+import io.manebot.command.ShellLifecycleManager;
+import io.manebot.command.exception.CommandArgumentException;
+import io.manebot.command.exception.CommandExecutionException;
+import io.manebot.command.executor.chained.AnnotatedCommandExecutor;
+import io.manebot.command.executor.chained.argument.CommandArgumentLabel;
+import io.manebot.command.executor.chained.argument.CommandArgumentPage;
+import io.manebot.command.executor.chained.argument.CommandArgumentString;
+import io.manebot.user.UserAssociationCache;
+import io.manebot.util.LatencyHistogram;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class StatsCommand extends AnnotatedCommandExecutor {
+    private static final String MILLISECONDS_FORMAT = "%,.3f";
+
+    private final ShellLifecycleManager<?> shellManager;
+    private final ShellBacklogStatistics backlogStatistics;
+    private final CommandRateLimiter rateLimiter;
+    private final CommandStatistics commandStatistics;
+    private final CommandDeadlines deadlines;
+    private final UserAssociationCache associationCache;
+
+    public StatsCommand(ShellLifecycleManager<?> shellManager, ShellBacklogStatistics backlogStatistics,
+                        CommandRateLimiter rateLimiter, CommandStatistics commandStatistics,
+                        CommandDeadlines deadlines, UserAssociationCache associationCache) {
+        this.shellManager = shellManager;
+        this.backlogStatistics = backlogStatistics;
+        this.rateLimiter = rateLimiter;
+        this.commandStatistics = commandStatistics;
+        this.deadlines = deadlines;
+        this.associationCache = associationCache;
+    }
+
+    @Command(description = "Lists the slowest commands", permission = "system.stats.commands")
+    public void commands(CommandSender sender,
+                         @CommandArgumentLabel.Argument(label = "commands") String commands,
+                         @CommandArgumentPage.Argument() int page)
+            throws CommandExecutionException {
+        sender.sendList(CommandMetrics.class, builder -> builder
+                .direct(commandStatistics.getAllMetrics().stream()
+                        .filter(metrics -> metrics.getExecutions() > 0)
+                        .sorted(Comparator.comparingLong(
+                                (CommandMetrics metrics) -> metrics.getExecution().getPercentile(99D, TimeUnit.NANOSECONDS)
+                        ).reversed())
+                        .collect(Collectors.toList()))
+                .page(page)
+                .responder((textBuilder, metrics) -> textBuilder
+                        .append(metrics.getLabel(), EnumSet.of(TextStyle.ITALICS))
+                        .append(": " + describe(metrics.getExecution()) + ", " +
+                                metrics.getExecutions() + " runs, " +
+                                metrics.getErrors() + " errors, " +
+                                metrics.getFailures() + " failed, " +
+                                metrics.getTimeouts() + " timed out"))
+        );
+    }
+
+    @Command(description = "Gets statistics for a command", permission = "system.stats.commands")
+    public void command(CommandSender sender,
+                        @CommandArgumentLabel.Argument(label = "command") String command,
+                        @CommandArgumentString.Argument(label = "label") String label)
+            throws CommandExecutionException {
+        CommandMetrics metrics = commandStatistics.getMetrics(label.toLowerCase());
+        if (metrics == null) throw new CommandArgumentException("\"" + label + "\" has not been run.");
+
+        sender.sendDetails(builder -> builder.name("Command").key(metrics.getLabel())
+                .item("Runs", Long.toString(metrics.getExecutions()))
+                .item("Queue wait", describe(metrics.getQueueWait()))
+                .item("Execution", describe(metrics.getExecution()))
+                .item("Errors", Long.toString(metrics.getErrors()))
+                .item("Failures", Long.toString(metrics.getFailures()))
+                .item("Timed out", Long.toString(metrics.getTimeouts()))
+                .item("Cancelled", Long.toString(metrics.getCancellations()))
+        );
+    }
+
+    @Command(description = "Gets command shell statistics", permission = "system.stats.shells")
+    public void shells(CommandSender sender,
+                       @CommandArgumentLabel.Argument(label = "shells") String shells)
+            throws CommandExecutionException {
+        sender.sendDetails(builder -> builder.name("Shells").key("shells")
+                .item("Open", shellManager.getLive() + " (" +
+                        shellManager.getIdle() + " idle, " +
+                        shellManager.getWarm() + " kept warm)")
+                .item("Creating", Integer.toString(shellManager.getCreating()))
+                .item("Abandoned", Long.toString(deadlines.getAbandoned()))
+                .item("Queued", backlogStatistics.getQueued() + " now, " +
+                        backlogStatistics.getMaximumQueued() + " peak")
+                .item("Accepted", Long.toString(backlogStatistics.getAccepted()))
+                .item("Rejected", Long.toString(backlogStatistics.getRejected()))
+                .item("Dropped", Long.toString(backlogStatistics.getDropped()))
+                .item("Coalesced", Long.toString(backlogStatistics.getCoalesced()))
+                .item("Blocked", Long.toString(backlogStatistics.getBlocked()))
+        );
+    }
+
+    @Command(description = "Gets command rate limiting statistics", permission = "system.stats.throttle")
+    public void throttle(CommandSender sender,
+                         @CommandArgumentLabel.Argument(label = "throttle") String throttle)
+            throws CommandExecutionException {
+        sender.sendDetails(builder -> builder.name("Command rate limits").key("throttle")
+                .item("Enabled", Boolean.toString(rateLimiter.isEnabled()))
+                .item("Allowed", Long.toString(rateLimiter.getAllowed()))
+                .item("User", describe(CommandRateLimiter.Scope.USER))
+                .item("Platform", describe(CommandRateLimiter.Scope.PLATFORM))
+                .item("Global", describe(CommandRateLimiter.Scope.GLOBAL))
+        );
+    }
+
+    @Command(description = "Gets user association cache statistics", permission = "system.stats.associations")
+    public void associations(CommandSender sender,
+                             @CommandArgumentLabel.Argument(label = "associations") String associations)
+            throws CommandExecutionException {
+        sender.sendDetails(builder -> builder.name("User associations").key("associations")
+                .item("Cached", associationCache.size() + " of " + associationCache.getMaximumSize())
+                .item("Hits", associationCache.getHits() + " known, " +
+                        associationCache.getNegativeHits() + " unknown")
+                .item("Misses", Long.toString(associationCache.getMisses()))
+                .item("Evicted", Long.toString(associationCache.getEvictions()))
+        );
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return String.format(MILLISECONDS_FORMAT, histogram.getPercentile(50D, TimeUnit.MICROSECONDS) / 1000D) +
+                "ms p50, " +
+                String.format(MILLISECONDS_FORMAT, histogram.getPercentile(99D, TimeUnit.MICROSECONDS) / 1000D) +
+                "ms p99, " +
+                String.format(MILLISECONDS_FORMAT, histogram.getMax(TimeUnit.MICROSECONDS) / 1000D) +
+                "ms max";
+    }
+
+    private String describe(CommandRateLimiter.Scope scope) {
+        return rateLimiter.getThrottled(scope) + " throttled, " + rateLimiter.getBucketCount(scope) + " buckets";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Gets command processing statistics";
+    }
+}
@@ -0,0 +1,133 @@
+package io.manebot.conversation;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of conversations by platform and chat ID.  Concurrent misses for the same chat share a single lookup, so the
+ * first messages from a new chat create one conversation between them rather than one each.
+ */
+final class ConversationCache {
+    private final int maximumSize;
+    private final Map<Key, CompletableFuture<io.manebot.database.model.Conversation>> conversations =
+            new ConcurrentHashMap<>();
+
+    ConversationCache(int maximumSize) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximum size must be positive");
+
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets a chat's conversation, loading it if it is not cached.  Only the caller that misses first runs the loader;
+     * others missing on the same chat wait for its result.
+     * @param platformId ID of the chat's platform.
+     * @param chatId ID of the chat.
+     * @param loader function finding or creating the conversation.
+     * @return conversation.
+     */
+    io.manebot.database.model.Conversation get(String platformId, String chatId,
+                                               Supplier<io.manebot.database.model.Conversation> loader) {
+        Key key = new Key(platformId, chatId);
+
+        CompletableFuture<io.manebot.database.model.Conversation> future = conversations.get(key);
+        if (future == null) {
+            CompletableFuture<io.manebot.database.model.Conversation> loading = new CompletableFuture<>();
+
+            future = conversations.putIfAbsent(key, loading);
+            if (future == null) return load(key, loading, loader);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private io.manebot.database.model.Conversation load(
+            Key key,
+            CompletableFuture<io.manebot.database.model.Conversation> loading,
+            Supplier<io.manebot.database.model.Conversation> loader
+    ) {
+        io.manebot.database.model.Conversation conversation;
+
+        try {
+            conversation = loader.get();
+        } catch (RuntimeException | Error ex) {
+            // Not cached, so the next message tries again.
+            conversations.remove(key, loading);
+            loading.completeExceptionally(ex);
+            throw ex;
+        }
+
+        loading.complete(conversation);
+        if (conversations.size() > maximumSize) evict();
+
+        return conversation;
+    }
+
+    /**
+     * Forgets a chat's conversation.
+     * @param platformId ID of the chat's platform.
+     * @param chatId ID of the chat.
+     */
+    void invalidate(String platformId, String chatId) {
+        conversations.remove(new Key(platformId, chatId));
+    }
+
+    /**
+     * Forgets the conversations of every chat on a platform.
+     * @param platformId ID of the platform.
+     */
+    void invalidatePlatform(String platformId) {
+        conversations.keySet().removeIf(key -> key.platformId.equals(platformId));
+    }
+
+    void invalidateAll() {
+        conversations.clear();
+    }
+
+    int size() {
+        return conversations.size();
+    }
+
+    /**
+     * Removes loaded conversations until the cache is within its maximum size.  Conversations still loading are kept,
+     * so misses on them stay single-flight.
+     */
+    private void evict() {
+        Iterator<CompletableFuture<io.manebot.database.model.Conversation>> iterator =
+                conversations.values().iterator();
+
+        while (conversations.size() > maximumSize && iterator.hasNext())
+            if (iterator.next().isDone()) iterator.remove();
+    }
+
+    private static final class Key {
+        private final String platformId;
+        private final String chatId;
+
+        private Key(String platformId, String chatId) {
+            this.platformId = platformId;
+            this.chatId = chatId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return platformId.equals(key.platformId) && chatId.equals(key.chatId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * platformId.hashCode() + chatId.hashCode();
+        }
+    }
+}
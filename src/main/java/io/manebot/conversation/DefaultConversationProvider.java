@@ -8,6 +8,7 @@ import io.manebot.database.model.Platform;
 import io.manebot.platform.PlatformConnection;
 import io.manebot.platform.PlatformRegistration;
 
+import javax.persistence.EntityManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -21,10 +22,23 @@ public class DefaultConversationProvider implements ConversationProvider {
     private static final Class<io.manebot.database.model.Platform> platformClass =
             io.manebot.database.model.Platform.class;
 
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
     private final DefaultBot bot;
+    private final ConversationCache cache;
 
     public DefaultConversationProvider(DefaultBot bot) {
+        this(bot, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a conversation provider.
+     * @param bot bot to provide conversations for.
+     * @param cacheSize maximum number of conversations cached by chat.
+     */
+    public DefaultConversationProvider(DefaultBot bot, int cacheSize) {
         this.bot = bot;
+        this.cache = new ConversationCache(cacheSize);
     }
 
     private io.manebot.database.model.Conversation getConversation(
@@ -35,22 +49,39 @@ public class DefaultConversationProvider implements ConversationProvider {
         if (chat == null) throw new NullPointerException("chat");
         if (!chat.isConnected()) throw new IllegalStateException("Chat is not connected");
 
-        io.manebot.database.model.Conversation conversation = bot.getSystemDatabase().execute(s -> {
-            return s.createQuery(
-                        "select c from " + conversationClass.getName() + " c " +
-                                "inner join c.platform p " +
-                                "where p.id = :platformId and c.id = :conversationId",
-                        conversationClass
-                ).setParameter("platformId", platform.getId())
-                .setParameter("conversationId", chat.getId())
-                .getResultList()
-                .stream().findFirst().orElse(null);
-        });
+        return cache.get(platform.getId(), chat.getId(), () -> findOrCreateConversation(platform, chat));
+    }
+
+    private io.manebot.database.model.Conversation findConversation(
+            EntityManager s,
+            io.manebot.database.model.Platform platform,
+            Chat chat
+    ) {
+        return s.createQuery(
+                    "select c from " + conversationClass.getName() + " c " +
+                            "inner join c.platform p " +
+                            "where p.id = :platformId and c.id = :conversationId",
+                    conversationClass
+            ).setParameter("platformId", platform.getId())
+            .setParameter("conversationId", chat.getId())
+            .getResultList()
+            .stream().findFirst().orElse(null);
+    }
+
+    private io.manebot.database.model.Conversation findOrCreateConversation(
+            io.manebot.database.model.Platform platform,
+            Chat chat
+    ) {
+        io.manebot.database.model.Conversation conversation =
+                bot.getSystemDatabase().execute(s -> { return findConversation(s, platform, chat); });
 
         if (conversation == null) {
             try {
-                // Create new conversation.
+                // Create new conversation, unless one was created since the lookup above.
                 conversation = bot.getSystemDatabase().executeTransaction(s -> {
+                    io.manebot.database.model.Conversation existing = findConversation(s, platform, chat);
+                    if (existing != null) return existing;
+
                     Entity entity = new Entity(bot.getSystemDatabase(), EntityType.CONVERSATION);
 
                     io.manebot.database.model.Conversation newConversation =
@@ -98,6 +129,34 @@ public class DefaultConversationProvider implements ConversationProvider {
         return getConversation(platform, chat);
     }
 
+    /**
+     * Forgets a chat's cached conversation, such as after it was removed from the database.
+     * @param platformId ID of the chat's platform.
+     * @param chatId ID of the chat.
+     */
+    public void invalidate(String platformId, String chatId) {
+        cache.invalidate(platformId, chatId);
+    }
+
+    /**
+     * Forgets the cached conversations of every chat on a platform, such as when it is unregistered.
+     * @param platformId ID of the platform.
+     */
+    public void invalidatePlatform(String platformId) {
+        cache.invalidatePlatform(platformId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Gets the number of conversations cached by chat.
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+
     @Override
     public Conversation getNullConversation() {
         return new NullConversation();
@@ -15,6 +15,7 @@ import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.boot.spi.MetadataImplementor;
 import org.hibernate.cfg.Environment;
 import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
 import org.hibernate.tool.hbm2ddl.SchemaUpdate;
 import org.hibernate.tool.schema.TargetType;
 import org.hibernate.type.Type;
@@ -25,9 +26,13 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class HibernateManager implements DatabaseManager {
@@ -41,6 +46,11 @@ public class HibernateManager implements DatabaseManager {
     private final Set<EntityMapping> entities = new LinkedHashSet<>();
     private final Map<String, io.manebot.database.Database> databases = new LinkedHashMap<>();
 
+    private final Map<Class<?>, List<Consumer<Object>>> writeListeners = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Consumer<Object>>> deleteListeners = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<Object>> written = ThreadLocal.withInitial(ArrayList::new);
+    private final ThreadLocal<List<Object>> deleted = ThreadLocal.withInitial(ArrayList::new);
+
     /**
      * This naming strategy allows tables to be implicitly named via a globally-acceptable naming format
      * (see tableNamingFormat)
@@ -100,8 +110,95 @@ public class HibernateManager implements DatabaseManager {
             if (mapping == null) return null;
             return mapping.newInstance(id);
         }
+
+        @Override
+        public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types)
+                throws CallbackException {
+            record(writeListeners, written, entity);
+            return false;
+        }
+
+        @Override
+        public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+                                    String[] propertyNames, Type[] types) throws CallbackException {
+            record(writeListeners, written, entity);
+            return false;
+        }
+
+        @Override
+        public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types)
+                throws CallbackException {
+            record(deleteListeners, deleted, entity);
+        }
+
+        @Override
+        public void afterTransactionCompletion(Transaction tx) {
+            boolean committed = tx.getStatus() == TransactionStatus.COMMITTED;
+            complete(writeListeners, written, committed);
+            complete(deleteListeners, deleted, committed);
+        }
     };
 
+    private static void record(Map<Class<?>, List<Consumer<Object>>> listeners, ThreadLocal<List<Object>> pending,
+                               Object entity) {
+        if (listeners.isEmpty()) return;
+
+        for (Class<?> entityClass : listeners.keySet())
+            if (entityClass.isInstance(entity)) {
+                pending.get().add(entity);
+                return;
+            }
+    }
+
+    private static void complete(Map<Class<?>, List<Consumer<Object>>> listeners, ThreadLocal<List<Object>> pending,
+                                 boolean committed) {
+        List<Object> entities = pending.get();
+        if (entities.isEmpty()) return;
+
+        pending.remove();
+        if (!committed) return;
+
+        for (Object entity : entities)
+            listeners.forEach((entityClass, entityListeners) -> {
+                if (!entityClass.isInstance(entity)) return;
+
+                for (Consumer<Object> listener : entityListeners) {
+                    try {
+                        listener.accept(entity);
+                    } catch (RuntimeException e) {
+                        Logger.getGlobal().log(Level.WARNING, "Problem notifying listener of " + entity, e);
+                    }
+                }
+            });
+    }
+
+    /**
+     * Adds a listener called with every entity of a class that is saved or updated, once the transaction writing it
+     * has committed.  This lets in-memory indexes follow changes made anywhere, including through the plugin API.
+     * Listeners run on the committing thread.
+     * @param entityClass class of entities to listen for.
+     * @param listener listener to add.
+     * @param <T> entity type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addWriteListener(Class<T> entityClass, Consumer<? super T> listener) {
+        writeListeners.computeIfAbsent(entityClass, c -> new CopyOnWriteArrayList<>())
+                .add((Consumer<Object>) listener);
+    }
+
+    /**
+     * Adds a listener called with every entity of a class that is deleted, once the transaction deleting it has
+     * committed.  Listeners run on the committing thread.
+     * @param entityClass class of entities to listen for.
+     * @param listener listener to add.
+     * @param <T> entity type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void addDeleteListener(Class<T> entityClass, Consumer<? super T> listener) {
+        deleteListeners.computeIfAbsent(entityClass, c -> new CopyOnWriteArrayList<>())
+                .add((Consumer<Object>) listener);
+    }
+
     public HibernateManager(DefaultBot bot, Properties properties) {
         this.bot = bot;
         this.properties = new Properties();
@@ -0,0 +1,179 @@
+package io.manebot.event;
+
+import io.manebot.util.VirtualThreads;
+
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Bounded executor used to deliver asynchronous events, with a configurable policy for when its queue is full.
+ */
+public class AsyncEventExecutor extends ThreadPoolExecutor {
+    public static final int DEFAULT_THREADS = 64;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.CALLER_RUNS;
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean virtual;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    public AsyncEventExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_OVERFLOW_POLICY, false);
+    }
+
+    /**
+     * Creates a new asynchronous event executor.
+     * @param threads maximum number of threads delivering events at once.
+     * @param queueCapacity maximum number of events waiting for a thread.
+     * @param overflowPolicy policy applied to events submitted while the queue is full.
+     * @param virtual true to deliver events on virtual threads, if the running JVM supports them.
+     */
+    public AsyncEventExecutor(int threads, int queueCapacity, OverflowPolicy overflowPolicy, boolean virtual) {
+        super(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+
+        if (virtual && !VirtualThreads.isSupported()) {
+            Logger.getGlobal().warning("Virtual threads are not supported by this JVM; " +
+                    "asynchronous events will be delivered on platform threads.");
+            virtual = false;
+        }
+
+        this.virtual = virtual;
+
+        setThreadFactory(virtual ? VirtualThreads.newThreadFactory("event-") : new EventThreadFactory());
+        setRejectedExecutionHandler(new OverflowHandler());
+        allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates an asynchronous event executor from properties: threads, queue, overflow
+     * (caller-runs, drop-oldest, reject) and virtual (true/false).
+     * @param properties properties to read.
+     * @return executor instance.
+     */
+    public static AsyncEventExecutor fromProperties(Properties properties) {
+        int threads = Integer.parseInt(properties.getProperty("threads", Integer.toString(DEFAULT_THREADS)));
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+
+        int queueCapacity = Integer.parseInt(properties.getProperty("queue", Integer.toString(DEFAULT_QUEUE_CAPACITY)));
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queue must be positive");
+
+        OverflowPolicy overflowPolicy = properties.containsKey("overflow") ?
+                OverflowPolicy.fromString(properties.getProperty("overflow")) :
+                DEFAULT_OVERFLOW_POLICY;
+
+        boolean virtual = Boolean.parseBoolean(properties.getProperty("virtual", "false"));
+
+        return new AsyncEventExecutor(threads, queueCapacity, overflowPolicy, virtual);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Gets the number of events refused by the REJECT policy, or submitted after shutdown.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of queued events discarded by the DROP_OLDEST policy.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of events the CALLER_RUNS policy delivered on the submitting thread.
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Deliver the event on the submitting thread, slowing the producer down to the rate events are consumed.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Discard (cancel) the oldest queued event to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Refuse the new event with a RejectedExecutionException.
+         */
+        REJECT;
+
+        public static OverflowPolicy fromString(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private class OverflowHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                rejected.increment();
+                throw new RejectedExecutionException("event executor is shut down");
+            }
+
+            switch (overflowPolicy) {
+                case CALLER_RUNS:
+                    callerRuns.increment();
+                    r.run();
+                    break;
+                case DROP_OLDEST:
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest != null) {
+                        dropped.increment();
+
+                        // Don't leave anyone waiting on an event that will never be delivered.
+                        if (oldest instanceof Future) ((Future<?>) oldest).cancel(false);
+                    }
+
+                    executor.execute(r);
+                    break;
+                case REJECT:
+                default:
+                    rejected.increment();
+                    throw new RejectedExecutionException("event queue is full (" + queueCapacity + ")");
+            }
+        }
+    }
+
+    private static class EventThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "event-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
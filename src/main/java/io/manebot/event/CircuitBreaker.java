@@ -0,0 +1,82 @@
+package io.manebot.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker guarding a single event handler.  After a number of consecutive failures the breaker opens and the
+ * handler is skipped; once the cooldown has elapsed a single trial delivery is let through (half-open), which either
+ * closes the breaker again or re-opens it for another cooldown.
+ */
+public final class CircuitBreaker {
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    CircuitBreaker() { }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Finds if a delivery may proceed.
+     * @param cooldown nanoseconds an open breaker stays open before allowing a trial delivery.
+     * @return true if the handler should be called, false if it should be skipped.
+     */
+    boolean tryAcquire(long cooldown) {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                // Only one thread gets the trial delivery.
+                return System.nanoTime() - openedAt >= cooldown && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            case HALF_OPEN:
+            default:
+                return false;
+        }
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    /**
+     * Records a failed delivery.
+     * @param threshold consecutive failures after which the breaker opens.
+     * @return true if this failure opened the breaker.
+     */
+    boolean recordFailure(int threshold) {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= threshold)) {
+            openedAt = System.nanoTime();
+            return state.compareAndSet(current, State.OPEN);
+        }
+
+        return false;
+    }
+
+    public enum State {
+        /**
+         * Deliveries proceed normally.
+         */
+        CLOSED,
+
+        /**
+         * Deliveries are skipped until the cooldown elapses.
+         */
+        OPEN,
+
+        /**
+         * A single trial delivery is in progress.
+         */
+        HALF_OPEN
+    }
+}
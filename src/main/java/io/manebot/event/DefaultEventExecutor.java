@@ -1,15 +1,22 @@
 package io.manebot.event;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 
 /**
- * Executes an event using Java reflection.
+ * Executes an event using a method handle resolved once, when the listener is registered.
  */
 public class DefaultEventExecutor implements EventExecutor {
-    private Method method;
+    private static final MethodType handlerType = MethodType.methodType(void.class, EventListener.class, Event.class);
 
-    private EventListener eventListener;
-    private EventPriority eventPriority;
+    private final Method method;
+    private final MethodHandle handle;
+
+    private final EventListener eventListener;
+    private final EventPriority eventPriority;
 
     public DefaultEventExecutor(
             EventListener eventListener,
@@ -18,18 +25,44 @@ public class DefaultEventExecutor implements EventExecutor {
         this.eventListener = eventListener;
         this.eventPriority = eventPriority;
         this.method = method;
+        this.handle = createHandle(method);
+    }
+
+    /**
+     * Resolves an invoker for the specified handler method, adapted to (EventListener, Event)void so that it can be
+     * called with invokeExact and without boxing arguments into an array.
+     * @param method handler method to resolve.
+     * @return method handle.
+     */
+    private static MethodHandle createHandle(Method method) {
+        try {
+            // Listener classes are commonly private/nested; access checks are done once here, not per event.
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(handlerType);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access event handler " + method.toGenericString(), e);
+        }
     }
 
     @Override
     public void fire(Event event) throws EventExecutionException {
         try {
-            method.setAccessible(true);
-            method.invoke(eventListener, event);
+            handle.invokeExact(eventListener, event);
         } catch (Exception e) {
             throw new EventExecutionException(e);
+        } catch (Error e) {
+            // Not ours to wrap.
+            throw e;
+        } catch (Throwable e) {
+            // A Throwable that is neither an Exception nor an Error.
+            throw new EventExecutionException(new UndeclaredThrowableException(e));
         }
     }
 
+    public Method getMethod() {
+        return method;
+    }
+
     @Override
     public EventListener getListener() {
         return eventListener;
@@ -39,4 +72,4 @@ public class DefaultEventExecutor implements EventExecutor {
     public EventPriority getPriority() {
         return eventPriority;
     }
-}
\ No newline at end of file
+}
@@ -1,66 +1,414 @@
 package io.manebot.event;
 
+import io.manebot.artifact.ArtifactIdentifier;
+import io.manebot.plugin.Plugin;
+import io.manebot.plugin.java.classloader.JavaPluginClassLoader;
+import io.manebot.user.User;
+import io.manebot.virtual.DefaultVirtual;
+import io.manebot.virtual.Virtual;
+
 import java.lang.reflect.Method;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class DefaultEventManager implements EventManager, EventDispatcher {
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
-    private final LinkedHashMap<Class<? extends Event>, List<EventAction>> eventMap = new LinkedHashMap<>();
+    private static final long warningInterval = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Comparator<EventAction> actionOrder =
+            Comparator.<EventAction, EventPriority>comparing(action -> action.getEventExecutor().getPriority())
+                    .thenComparingLong(EventAction::getSequence);
+
+    private final AsyncEventExecutor executorService;
+    private final PartitionedExecutor partitionedExecutor;
+    private final EventCoalescer coalescer = new EventCoalescer(this::deliverCoalesced);
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Handler duration, in nanoseconds, above which a warning is logged; 0 to disable.
+     */
+    private volatile long listenerBudget = 0L;
+
+    private volatile ListenerIsolation isolation = null;
+    private volatile ExecutorService isolationExecutor = null;
+
+    /**
+     * Immutable snapshot of every registered action.  Registration replaces the snapshot with compare-and-set, so
+     * dispatch never locks and never observes a partially updated registry.
+     */
+    private final AtomicReference<DispatchTable> dispatchTable =
+            new AtomicReference<>(new DispatchTable(Collections.emptyMap()));
 
     public DefaultEventManager() {
+        this(new AsyncEventExecutor());
+    }
 
+    public DefaultEventManager(AsyncEventExecutor executorService) {
+        this.executorService = executorService;
+        this.partitionedExecutor = new PartitionedExecutor(executorService);
     }
 
-    @Override
-    public void registerListener(EventListener eventListener) {
-        synchronized (eventMap) {
-            for (EventAction action : getActions(eventListener)) {
-                List<EventAction> actions = eventMap.computeIfAbsent(
-                        action.getEventClass(),
-                        k -> new CopyOnWriteArrayList<>()
+    /**
+     * Gets the executor delivering events submitted through executeAsync.
+     * @return asynchronous event executor.
+     */
+    public AsyncEventExecutor getAsyncExecutor() {
+        return executorService;
+    }
+
+    /**
+     * Sets the time an event handler may take before a warning naming it is logged.
+     * @param budget budget, or 0 to disable warnings.
+     * @param unit budget time unit.
+     */
+    public void setListenerBudget(long budget, TimeUnit unit) {
+        if (budget < 0) throw new IllegalArgumentException("budget");
+        this.listenerBudget = unit.toNanos(budget);
+    }
+
+    /**
+     * Sets the isolation settings used when executing events, with no workers to enforce handler deadlines on.
+     * @param isolation isolation settings, or null to disable isolation mode.
+     * @see #setIsolation(ListenerIsolation, ThreadFactory)
+     */
+    public void setIsolation(ListenerIsolation isolation) {
+        setIsolation(isolation, null);
+    }
+
+    /**
+     * Sets the isolation settings used when executing events.  In isolation mode, a handler that throws does not stop
+     * delivery to the handlers after it, handlers may be given a deadline, and a handler that keeps failing is skipped
+     * by its circuit breaker until a cooldown has passed.
+     *
+     * Handlers with a deadline run on a bounded pool of workers, as the user of the process firing the event, or with
+     * no user if the event was not fired by a process (as with events delivered by executeAsync).  A handler still
+     * running at its deadline keeps its worker until it returns; once every worker is taken and the pool's queue is
+     * full, handlers with a deadline fail straight away.
+     *
+     * @param isolation isolation settings, or null to disable isolation mode.
+     * @param threadFactory factory creating the workers, whose threads must be processes allowed to change their
+     *                      user; or null to run handlers on the firing thread without enforcing deadlines.
+     */
+    public void setIsolation(ListenerIsolation isolation, ThreadFactory threadFactory) {
+        synchronized (this) {
+            ExecutorService previous = isolationExecutor;
+
+            if (isolation != null && threadFactory != null) {
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                        isolation.getWorkers(),
+                        isolation.getWorkers(),
+                        60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(isolation.getQueueSize()),
+                        threadFactory
                 );
+                executor.allowCoreThreadTimeOut(true);
+                isolationExecutor = executor;
+            } else
+                isolationExecutor = null;
 
-                actions.add(action);
-            }
+            this.isolation = isolation;
+
+            if (previous != null) previous.shutdown();
         }
     }
 
+    public ListenerIsolation getIsolation() {
+        return isolation;
+    }
+
+    /**
+     * Gets the metrics of every registered event handler.
+     * @return listener metrics.
+     */
+    public Collection<ListenerMetrics> getListenerMetrics() {
+        return dispatchTable.get().registered.values().stream()
+                .flatMap(Arrays::stream)
+                .map(EventAction::getMetrics)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void registerListener(EventListener eventListener) {
+        List<EventAction> added = getActions(eventListener);
+
+        DispatchTable current, updated;
+        do {
+            current = dispatchTable.get();
+
+            Map<Class<?>, EventAction[]> registered = new HashMap<>(current.registered);
+            for (EventAction action : added)
+                registered.merge(action.getEventClass(), new EventAction[] { action }, DefaultEventManager::concat);
+
+            updated = new DispatchTable(registered);
+        } while (!dispatchTable.compareAndSet(current, updated));
+    }
+
     @Override
     public void unregisterListener(EventListener eventListener) {
-        synchronized (eventMap) {
-            for (EventAction action : getActions(eventListener)) {
-                List<EventAction> actions = eventMap.get(action.getEventClass());
-                if (actions == null) return;
+        DispatchTable current, updated;
+        do {
+            current = dispatchTable.get();
 
-                actions.removeIf(x -> x.getEventExecutor().getListener() == eventListener);
+            // Invokers are only built on registration; match the listener's existing actions by identity instead.
+            Map<Class<?>, EventAction[]> registered = new HashMap<>();
+            for (Map.Entry<Class<?>, EventAction[]> entry : current.registered.entrySet()) {
+                EventAction[] remaining = Arrays.stream(entry.getValue())
+                        .filter(x -> x.getEventExecutor().getListener() != eventListener)
+                        .toArray(EventAction[]::new);
+
+                if (remaining.length > 0) registered.put(entry.getKey(), remaining);
             }
-        }
+
+            updated = new DispatchTable(registered);
+        } while (!dispatchTable.compareAndSet(current, updated));
+    }
+
+    private static EventAction[] concat(EventAction[] a, EventAction[] b) {
+        EventAction[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Coalesces bursts of an event type submitted through executeAsync.  The first event for a merge key opens a
+     * window; events of the same class and merge key submitted before the window closes replace the pending event, and
+     * only the latest is delivered.  Every event in the window shares the returned future.  Synchronous execution is
+     * never coalesced.  Events submitted with a partition key only merge within their partition, and a window closes
+     * early when another event is submitted with its partition key, so per-key delivery order is kept.
+     * @param eventClass exact class of events to coalesce.
+     * @param mergeKey function deriving the merge key of an event; events with a null key are not coalesced.
+     * @param window window length.
+     * @param unit window time unit.
+     * @param <T> event type.
+     */
+    public <T extends Event> void registerCoalescing(Class<T> eventClass, Function<? super T, ?> mergeKey,
+                                                     long window, TimeUnit unit) {
+        coalescer.register(eventClass, mergeKey, unit.toNanos(window));
+    }
+
+    public void unregisterCoalescing(Class<? extends Event> eventClass) {
+        coalescer.unregister(eventClass);
+    }
+
+    /**
+     * Gets the number of events merged into another pending event instead of being delivered.
+     */
+    public long getCoalescedCount() {
+        return coalescer.getCoalescedCount();
+    }
+
+    /**
+     * Gets the number of coalescing windows currently open.
+     */
+    public int getCoalescingWindows() {
+        return coalescer.getPendingCount();
     }
 
     @Override
     public <T extends Event> Future<T> executeAsync(T event) {
+        Future<T> coalesced = coalescer.submit(event, null);
+        if (coalesced != null) return coalesced;
+
         return executorService.submit(() -> execute(event));
     }
 
+    private void deliverCoalesced(Event event, Object partitionKey, CompletableFuture<Event> future) {
+        FutureTask<Event> task = new FutureTask<Event>(() -> execute(event)) {
+            @Override
+            protected void done() {
+                try {
+                    future.complete(get());
+                } catch (CancellationException e) {
+                    future.cancel(false);
+                } catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        try {
+            if (partitionKey != null) partitionedExecutor.execute(partitionKey, task);
+            else executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executes an event asynchronously, in order with respect to every other event submitted with an equal partition
+     * key.  Events with the same key (for example, a chat) are delivered one at a time in submission order, while
+     * events with different keys are delivered in parallel.
+     * @param event event to execute.
+     * @param partitionKey key to order delivery by, or null to deliver without ordering.
+     * @param <T> event type.
+     * @return future completed once the event has been delivered to all listeners.
+     */
+    public <T extends Event> Future<T> executeAsync(T event, Object partitionKey) {
+        if (partitionKey == null) return executeAsync(event);
+
+        Future<T> coalesced = coalescer.submit(event, partitionKey);
+        if (coalesced != null) return coalesced;
+
+        FutureTask<T> task = new FutureTask<>(() -> execute(event));
+        partitionedExecutor.execute(partitionKey, task);
+        return task;
+    }
+
+    /**
+     * Gets the number of partition keys with events pending or being delivered.
+     */
+    public int getActivePartitions() {
+        return partitionedExecutor.getActivePartitions();
+    }
+
     @Override
     public <T extends Event> T execute(T event) throws EventExecutionException {
-        List<EventAction> actions = eventMap.get(event.getClass());
-        if (actions == null) return event;
+        EventAction[] actions = dispatchTable.get().resolve(event.getClass());
+
+        ListenerIsolation isolation = this.isolation;
 
-        for (EventAction action : actions) action.getEventExecutor().fire(event);
+        if (isolation == null)
+            for (EventAction action : actions) fire(action, event);
+        else
+            for (EventAction action : actions) fireIsolated(action, event, isolation);
 
         return event;
     }
 
+    private void fireIsolated(EventAction action, Event event, ListenerIsolation isolation) {
+        ListenerMetrics metrics = action.getMetrics();
+        CircuitBreaker circuitBreaker = metrics.getCircuitBreaker();
+
+        if (!circuitBreaker.tryAcquire(isolation.getCooldown())) {
+            metrics.recordSkipped();
+            return;
+        }
+
+        try {
+            long deadline = isolation.getDeadline(metrics.getOwner());
+            ExecutorService executor = isolationExecutor;
+            User user = Virtual.getInstance() != null ? Virtual.getInstance().currentUser() : null;
+
+            // Events fired outside of a process, such as those delivered by executeAsync, run with no user.
+            if (deadline > 0L && executor != null)
+                fireWithDeadline(executor, user, action, event, deadline);
+            else
+                fire(action, event);
+
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            boolean opened = circuitBreaker.recordFailure(isolation.getFailureThreshold());
+
+            Logger.getGlobal().log(
+                    Level.WARNING,
+                    "Event handler " + metrics + " failed handling " + event.getClass().getSimpleName() +
+                            (opened ? "; handler will be skipped for " +
+                                    TimeUnit.NANOSECONDS.toSeconds(isolation.getCooldown()) + "s" : ""),
+                    e
+            );
+        } catch (Error e) {
+            // Not contained, but must not leave a half-open breaker stuck waiting on this delivery.
+            circuitBreaker.recordFailure(isolation.getFailureThreshold());
+            throw e;
+        }
+    }
+
+    private void fireWithDeadline(ExecutorService executor, User user, EventAction action, Event event,
+                                  long deadline) throws EventExecutionException {
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                fireAs(user, action, event);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            throw new EventExecutionException(e);
+        }
+
+        try {
+            future.get(deadline, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EventExecutionException) throw (EventExecutionException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new EventExecutionException((Exception) e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            action.getMetrics().recordTimeout();
+
+            throw new EventExecutionException(new TimeoutException(
+                    "handler did not complete within " + TimeUnit.NANOSECONDS.toMillis(deadline) + "ms"
+            ));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new EventExecutionException(e);
+        }
+    }
+
+    /**
+     * Fires an action on a worker, as the user of the process that fired the event.  A worker that is not a process
+     * fires it as it is, which only happens without a virtual environment.
+     */
+    private void fireAs(User user, EventAction action, Event event) throws EventExecutionException {
+        Virtual virtual = Virtual.getInstance();
+
+        if (user == null && (virtual == null || virtual.currentProcess() == null)) {
+            fire(action, event);
+            return;
+        }
+
+        if (!(virtual instanceof DefaultVirtual)) throw new IllegalStateException("no virtual environment");
+
+        EventExecutionException[] failure = new EventExecutionException[1];
+        ((DefaultVirtual) virtual).runAs(user, () -> {
+            try {
+                fire(action, event);
+            } catch (EventExecutionException e) {
+                failure[0] = e;
+            }
+        });
+
+        if (failure[0] != null) throw failure[0];
+    }
+
+    private void fire(EventAction action, Event event) throws EventExecutionException {
+        boolean failed = true;
+        long start = System.nanoTime();
+
+        try {
+            action.getEventExecutor().fire(event);
+            failed = false;
+        } finally {
+            long duration = System.nanoTime() - start;
+            action.getMetrics().record(duration, failed);
+
+            long budget = listenerBudget;
+            if (budget > 0 && duration > budget) action.warnOverBudget(duration, budget);
+        }
+    }
+
+    private static ArtifactIdentifier getOwner(EventListener listener) {
+        if (listener instanceof Plugin)
+            return ((Plugin) listener).getArtifact().getIdentifier();
+
+        ClassLoader classLoader = listener.getClass().getClassLoader();
+        if (classLoader instanceof JavaPluginClassLoader)
+            return ((JavaPluginClassLoader) classLoader).getInstance().getArtifact().getIdentifier();
+
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     private List<EventAction> getActions(EventListener listener) {
         List<EventAction> actions = new LinkedList<>();
+        ArtifactIdentifier owner = getOwner(listener);
 
         for (Method method : listener.getClass().getMethods()) {
             EventHandler annotation = method.getAnnotation(EventHandler.class);
@@ -86,26 +434,122 @@ public class DefaultEventManager implements EventManager, EventDispatcher {
                         + " is not extensible by " + Event.class.getName()
                 );
 
+            Class<? extends Event> eventClass = (Class<? extends Event>) parameter0;
+
             actions.add(new EventAction(
                     new DefaultEventExecutor(
                         listener,
                         annotation.priority(),
                         method
                     ),
-                    (Class<? extends Event>) parameter0
+                    eventClass,
+                    sequence.getAndIncrement(),
+                    new ListenerMetrics(
+                            owner,
+                            listener.getClass().getName() + "." + method.getName(),
+                            eventClass
+                    )
             ));
         }
 
         return actions;
     }
 
-    private class EventAction {
+    /**
+     * Listener actions keyed by the event class they were declared for, plus a lazily filled cache of the actions
+     * that apply to each concrete event class once its superclasses and interfaces are taken into account.
+     */
+    private static final class DispatchTable {
+        private static final EventAction[] none = new EventAction[0];
+
+        private final Map<Class<?>, EventAction[]> registered;
+        private final Map<Class<?>, EventAction[]> resolved = new ConcurrentHashMap<>();
+
+        private DispatchTable(Map<Class<?>, EventAction[]> registered) {
+            this.registered = registered;
+        }
+
+        private EventAction[] resolve(Class<?> eventClass) {
+            EventAction[] actions = resolved.get(eventClass);
+            if (actions != null) return actions;
+
+            // Racing threads may each collect the same (identical) result; none of them waits on another.
+            actions = collect(eventClass);
+            EventAction[] existing = resolved.putIfAbsent(eventClass, actions);
+            return existing != null ? existing : actions;
+        }
+
+        private EventAction[] collect(Class<?> eventClass) {
+            if (registered.isEmpty()) return none;
+
+            List<EventAction> actions = new ArrayList<>();
+
+            for (Class<?> type : getHierarchy(eventClass)) {
+                EventAction[] declared = registered.get(type);
+                if (declared != null) Collections.addAll(actions, declared);
+            }
+
+            if (actions.isEmpty()) return none;
+
+            EventAction[] sorted = actions.toArray(new EventAction[0]);
+            Arrays.sort(sorted, actionOrder);
+            return sorted;
+        }
+
+        private static Set<Class<?>> getHierarchy(Class<?> eventClass) {
+            Set<Class<?>> hierarchy = new LinkedHashSet<>();
+            Deque<Class<?>> pending = new ArrayDeque<>();
+            pending.add(eventClass);
+
+            Class<?> type;
+            while ((type = pending.poll()) != null) {
+                if (!hierarchy.add(type)) continue;
+                if (type.getSuperclass() != null) pending.add(type.getSuperclass());
+                Collections.addAll(pending, type.getInterfaces());
+            }
+
+            return hierarchy;
+        }
+    }
+
+    private static final class EventAction {
         private final EventExecutor eventExecutor;
         private final Class<? extends Event> eventClass;
+        private final long sequence;
+        private final ListenerMetrics metrics;
+        private final AtomicLong lastWarning = new AtomicLong();
 
-        private EventAction(EventExecutor eventExecutor, Class<? extends Event> eventClass) {
+        private EventAction(EventExecutor eventExecutor, Class<? extends Event> eventClass, long sequence,
+                            ListenerMetrics metrics) {
             this.eventExecutor = eventExecutor;
             this.eventClass = eventClass;
+            this.sequence = sequence;
+            this.metrics = metrics;
+        }
+
+        private ListenerMetrics getMetrics() {
+            return metrics;
+        }
+
+        /**
+         * Logs that this action went over its time budget, at most once per minute per action.
+         */
+        private void warnOverBudget(long duration, long budget) {
+            long now = System.nanoTime();
+            long last = lastWarning.get();
+            if (last != 0L && now - last < warningInterval) return;
+            if (!lastWarning.compareAndSet(last, now)) return;
+
+            Logger.getGlobal().warning("Event handler " + metrics + " took " +
+                    TimeUnit.NANOSECONDS.toMillis(duration) + "ms handling " + eventClass.getSimpleName() +
+                    " (budget " + TimeUnit.NANOSECONDS.toMillis(budget) + "ms)");
+        }
+
+        /**
+         * Gets the registration order of this action, used to order actions of equal priority.
+         */
+        private long getSequence() {
+            return sequence;
         }
 
         private EventExecutor getEventExecutor() {
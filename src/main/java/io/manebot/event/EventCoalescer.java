@@ -0,0 +1,205 @@
+package io.manebot.event;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses bursts of asynchronous events.  For event classes with a coalescing rule, the first event for a merge key
+ * opens a window; events with the same key arriving within the window replace it, and only the latest is delivered
+ * when the window closes.  Every caller in the window receives the same future.
+ *
+ * Events submitted with a partition key only merge with events of the same partition.  A window is closed early when
+ * any other event is submitted with its partition key, so the coalesced event is still delivered ahead of the events
+ * submitted after it in that partition.
+ */
+final class EventCoalescer {
+    private static final int PARTITION_LOCKS = 64;
+
+    private final Map<Class<?>, Rule> rules = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PendingKey, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, Set<PendingKey>> partitions = new ConcurrentHashMap<>();
+    private final Object[] partitionLocks = new Object[PARTITION_LOCKS];
+    private final LongAdder coalesced = new LongAdder();
+    private final Delivery delivery;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    EventCoalescer(Delivery delivery) {
+        this.delivery = delivery;
+        for (int i = 0; i < partitionLocks.length; i ++) partitionLocks[i] = new Object();
+    }
+
+    synchronized <T extends Event> void register(Class<T> eventClass, Function<? super T, ?> mergeKey, long window) {
+        if (window <= 0L) throw new IllegalArgumentException("window");
+
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "event-coalescer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+
+        rules.put(eventClass, new Rule(mergeKey, window));
+    }
+
+    void unregister(Class<? extends Event> eventClass) {
+        rules.remove(eventClass);
+    }
+
+    /**
+     * Gets the number of events that were merged into another pending event rather than delivered.
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Submits an event for coalesced delivery.  Every event submitted with a partition key must pass through here,
+     * coalesced or not, so windows open in its partition are delivered first.
+     * @param event event to submit.
+     * @param partitionKey partition key to deliver the event with, or null.
+     * @param <T> event type.
+     * @return future completed with the delivered event, or null if the event is not subject to coalescing and should
+     *         be delivered by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Event> Future<T> submit(T event, Object partitionKey) {
+        Rule rule = rules.isEmpty() ? null : rules.get(event.getClass());
+        Object mergeKey = rule != null ? ((Function<Object, ?>) rule.mergeKey).apply(event) : null;
+        PendingKey key = mergeKey != null ? new PendingKey(event.getClass(), mergeKey, partitionKey) : null;
+
+        if (partitionKey != null && !partitions.isEmpty()) flushPartition(partitionKey, key);
+
+        if (key == null) return null;
+
+        boolean[] opened = new boolean[1];
+
+        Pending window = pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                opened[0] = true;
+
+                if (partitionKey != null)
+                    partitions.computeIfAbsent(partitionKey, p -> ConcurrentHashMap.newKeySet()).add(k);
+
+                return new Pending(event, partitionKey);
+            }
+
+            existing.event = event;
+            coalesced.increment();
+            return existing;
+        });
+
+        if (opened[0]) scheduler.schedule(() -> flush(key, window), rule.window, TimeUnit.NANOSECONDS);
+
+        // Events in a window all share the exact class the rule was registered for.
+        return (Future<T>) (Future<?>) window.future;
+    }
+
+    /**
+     * Delivers the windows open in a partition, other than the one an event is about to merge into.
+     */
+    private void flushPartition(Object partitionKey, PendingKey except) {
+        // Waits out a window the scheduler is delivering, so it is queued before the caller's event.
+        synchronized (getPartitionLock(partitionKey)) {
+            Set<PendingKey> keys = partitions.get(partitionKey);
+            if (keys == null) return;
+
+            for (PendingKey key : keys) {
+                if (key.equals(except)) continue;
+
+                Pending window = pending.get(key);
+                if (window != null) deliver(key, window);
+            }
+        }
+    }
+
+    private void flush(PendingKey key, Pending window) {
+        if (window.partitionKey == null) {
+            deliver(key, window);
+            return;
+        }
+
+        synchronized (getPartitionLock(window.partitionKey)) {
+            deliver(key, window);
+        }
+    }
+
+    private void deliver(PendingKey key, Pending window) {
+        // Once removed, no further events can merge into this window.
+        if (!pending.remove(key, window)) return;
+
+        if (window.partitionKey != null)
+            partitions.computeIfPresent(window.partitionKey, (p, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+
+        delivery.deliver(window.event, window.partitionKey, window.future);
+    }
+
+    private Object getPartitionLock(Object partitionKey) {
+        return partitionLocks[(partitionKey.hashCode() & 0x7fffffff) % partitionLocks.length];
+    }
+
+    interface Delivery {
+        void deliver(Event event, Object partitionKey, CompletableFuture<Event> future);
+    }
+
+    private static final class Rule {
+        private final Function<?, ?> mergeKey;
+        private final long window;
+
+        private Rule(Function<?, ?> mergeKey, long window) {
+            this.mergeKey = mergeKey;
+            this.window = window;
+        }
+    }
+
+    private static final class Pending {
+        private final Object partitionKey;
+        private final CompletableFuture<Event> future = new CompletableFuture<>();
+        private Event event;
+
+        private Pending(Event event, Object partitionKey) {
+            this.event = event;
+            this.partitionKey = partitionKey;
+        }
+    }
+
+    private static final class PendingKey {
+        private final Class<?> eventClass;
+        private final Object mergeKey;
+        private final Object partitionKey;
+
+        private PendingKey(Class<?> eventClass, Object mergeKey, Object partitionKey) {
+            this.eventClass = eventClass;
+            this.mergeKey = mergeKey;
+            this.partitionKey = partitionKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PendingKey)) return false;
+            PendingKey other = (PendingKey) o;
+            return eventClass == other.eventClass && mergeKey.equals(other.mergeKey) &&
+                    Objects.equals(partitionKey, other.partitionKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventClass, mergeKey, partitionKey);
+        }
+    }
+}
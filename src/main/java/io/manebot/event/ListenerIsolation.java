@@ -0,0 +1,128 @@
+package io.manebot.event;
+
+import io.manebot.artifact.ArtifactIdentifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for delivering events in isolation mode, where a failing, slow or hung handler cannot stop delivery to the
+ * handlers after it.
+ */
+public final class ListenerIsolation {
+    public static final long DEFAULT_DEADLINE = 0L;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_COOLDOWN = TimeUnit.MINUTES.toMillis(1);
+    public static final int DEFAULT_WORKERS = 16;
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+
+    private final long deadline;
+    private final Map<String, Long> pluginDeadlines;
+    private final int failureThreshold;
+    private final long cooldown;
+    private final int workers;
+    private final int queueSize;
+
+    /**
+     * Creates isolation settings.
+     * @param deadline default handler deadline in milliseconds, or 0 to call handlers without a deadline.
+     * @param pluginDeadlines deadlines in milliseconds for plugins whose identifier starts with the key.
+     * @param failureThreshold consecutive failures or timeouts that open a handler's circuit breaker.
+     * @param cooldown milliseconds a tripped handler is skipped before it is tried again.
+     */
+    public ListenerIsolation(long deadline, Map<String, Long> pluginDeadlines, int failureThreshold, long cooldown) {
+        this(deadline, pluginDeadlines, failureThreshold, cooldown, DEFAULT_WORKERS, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates isolation settings.
+     * @param deadline default handler deadline in milliseconds, or 0 to call handlers without a deadline.
+     * @param pluginDeadlines deadlines in milliseconds for plugins whose identifier starts with the key.
+     * @param failureThreshold consecutive failures or timeouts that open a handler's circuit breaker.
+     * @param cooldown milliseconds a tripped handler is skipped before it is tried again.
+     * @param workers maximum number of workers running handlers with a deadline.
+     * @param queueSize maximum number of handlers with a deadline waiting for a worker.
+     */
+    public ListenerIsolation(long deadline, Map<String, Long> pluginDeadlines, int failureThreshold, long cooldown,
+                             int workers, int queueSize) {
+        if (deadline < 0) throw new IllegalArgumentException("deadline");
+        if (workers <= 0) throw new IllegalArgumentException("workers");
+        if (queueSize <= 0) throw new IllegalArgumentException("queueSize");
+        if (failureThreshold <= 0) throw new IllegalArgumentException("failureThreshold");
+        if (cooldown < 0) throw new IllegalArgumentException("cooldown");
+
+        this.deadline = TimeUnit.MILLISECONDS.toNanos(deadline);
+        this.pluginDeadlines = new LinkedHashMap<>();
+        pluginDeadlines.forEach((key, value) -> this.pluginDeadlines.put(key, TimeUnit.MILLISECONDS.toNanos(value)));
+        this.failureThreshold = failureThreshold;
+        this.cooldown = TimeUnit.MILLISECONDS.toNanos(cooldown);
+        this.workers = workers;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Reads isolation settings from properties: enabled, deadline, deadline.[plugin identifier], failures, cooldown,
+     * workers, queue.
+     * @param properties properties to read.
+     * @return isolation settings, or null if isolation is not enabled.
+     */
+    public static ListenerIsolation fromProperties(Properties properties) {
+        if (!Boolean.parseBoolean(properties.getProperty("enabled", "false"))) return null;
+
+        Map<String, Long> pluginDeadlines = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames())
+            if (key.startsWith("deadline."))
+                pluginDeadlines.put(key.substring("deadline.".length()), Long.parseLong(properties.getProperty(key)));
+
+        return new ListenerIsolation(
+                Long.parseLong(properties.getProperty("deadline", Long.toString(DEFAULT_DEADLINE))),
+                pluginDeadlines,
+                Integer.parseInt(properties.getProperty("failures", Integer.toString(DEFAULT_FAILURE_THRESHOLD))),
+                Long.parseLong(properties.getProperty("cooldown", Long.toString(DEFAULT_COOLDOWN))),
+                Integer.parseInt(properties.getProperty("workers", Integer.toString(DEFAULT_WORKERS))),
+                Integer.parseInt(properties.getProperty("queue", Integer.toString(DEFAULT_QUEUE_SIZE)))
+        );
+    }
+
+    /**
+     * Gets the deadline for handlers owned by a plugin.
+     * @param owner plugin identifier, or null for the bot's own handlers.
+     * @return deadline in nanoseconds, or 0 if handlers should be called without a deadline.
+     */
+    public long getDeadline(ArtifactIdentifier owner) {
+        if (owner != null) {
+            String identifier = owner.toString();
+            for (Map.Entry<String, Long> entry : pluginDeadlines.entrySet())
+                if (identifier.startsWith(entry.getKey())) return entry.getValue();
+        }
+
+        return deadline;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Gets the cooldown of a tripped handler, in nanoseconds.
+     */
+    public long getCooldown() {
+        return cooldown;
+    }
+
+    /**
+     * Gets the maximum number of workers running handlers with a deadline.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gets the maximum number of handlers with a deadline waiting for a worker.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+}
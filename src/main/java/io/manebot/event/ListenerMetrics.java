@@ -0,0 +1,94 @@
+package io.manebot.event;
+
+import io.manebot.artifact.ArtifactIdentifier;
+import io.manebot.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, failure count and latency of a single event handler method.
+ */
+public final class ListenerMetrics {
+    private final ArtifactIdentifier owner;
+    private final String name;
+    private final Class<? extends Event> eventClass;
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    ListenerMetrics(ArtifactIdentifier owner, String name, Class<? extends Event> eventClass) {
+        this.owner = owner;
+        this.name = name;
+        this.eventClass = eventClass;
+    }
+
+    /**
+     * Gets the identifier of the plugin that registered this listener.
+     * @return plugin artifact identifier, or null if the listener belongs to the bot itself.
+     */
+    public ArtifactIdentifier getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gets the name of this listener, in Class.method form.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Class<? extends Event> getEventClass() {
+        return eventClass;
+    }
+
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the number of deliveries abandoned because the handler ran past its deadline (isolation mode only).
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Gets the number of deliveries skipped while this handler's circuit breaker was open (isolation mode only).
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    void record(long nanoseconds, boolean failed) {
+        latency.record(nanoseconds);
+        if (failed) failures.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordSkipped() {
+        skipped.increment();
+    }
+
+    @Override
+    public String toString() {
+        return (owner != null ? owner.toString() : "manebot") + "/" + name;
+    }
+}
@@ -0,0 +1,115 @@
+package io.manebot.event;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Runs tasks in FIFO order per partition key, while tasks for different keys run in parallel on a shared executor.
+ *
+ * At most one worker drains a partition at a time; a partition only holds an executor slot while it has pending tasks,
+ * and is forgotten as soon as it is empty.
+ */
+final class PartitionedExecutor {
+    private final Executor executor;
+    private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+
+    PartitionedExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the number of partitions with pending or running tasks.
+     */
+    int getActivePartitions() {
+        return partitions.size();
+    }
+
+    void execute(Object key, RunnableFuture<?> task) throws RejectedExecutionException {
+        while (true) {
+            Partition partition = partitions.computeIfAbsent(key, Partition::new);
+            boolean start;
+
+            synchronized (partition) {
+                if (partition.closed) continue; // emptied and removed concurrently; use a fresh partition
+
+                partition.tasks.add(task);
+                start = partition.tasks.size() == 1;
+            }
+
+            if (start) {
+                try {
+                    executor.execute(new Drain(partition));
+                } catch (RejectedExecutionException ex) {
+                    partition.abort();
+                    throw ex;
+                }
+            }
+
+            return;
+        }
+    }
+
+    private final class Partition {
+        private final Object key;
+        private final Queue<RunnableFuture<?>> tasks = new ArrayDeque<>();
+        private boolean closed = false;
+
+        private Partition(Object key) {
+            this.key = key;
+        }
+
+        /**
+         * Runs queued tasks, in order, until the partition is empty.
+         */
+        private void drain() {
+            RunnableFuture<?> head;
+
+            synchronized (this) {
+                head = tasks.peek();
+            }
+
+            while (head != null) {
+                head.run();
+
+                synchronized (this) {
+                    tasks.poll();
+                    head = tasks.peek();
+                    if (head == null) close();
+                }
+            }
+        }
+
+        /**
+         * Cancels every queued task and closes the partition.
+         */
+        private void abort() {
+            synchronized (this) {
+                RunnableFuture<?> task;
+                while ((task = tasks.poll()) != null) task.cancel(false);
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            partitions.remove(key, this);
+        }
+    }
+
+    private static final class Drain extends FutureTask<Void> {
+        private final Partition partition;
+
+        private Drain(Partition partition) {
+            super(partition::drain, null);
+
+            this.partition = partition;
+        }
+
+        @Override
+        protected void done() {
+            // Dropped by the executor's overflow policy before it ran: nothing else will drain the partition.
+            if (isCancelled()) partition.abort();
+        }
+    }
+}
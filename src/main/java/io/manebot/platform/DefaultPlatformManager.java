@@ -6,6 +6,7 @@ import io.manebot.plugin.PluginException;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -18,6 +19,7 @@ public class DefaultPlatformManager implements PlatformManager {
     private final HashSet<PlatformRegistration> registrations = new HashSet<>();
     private final HashMap<Platform, PlatformRegistration> registrationMap = new LinkedHashMap<>();
     private final HashMap<String, PlatformRegistration> registrationByNameMap = new LinkedHashMap<>();
+    private final List<Consumer<String>> unregistrationListeners = new CopyOnWriteArrayList<>();
 
     public DefaultPlatformManager(Database systemDatabase) {
         this.systemDatabase = systemDatabase;
@@ -60,10 +62,25 @@ public class DefaultPlatformManager implements PlatformManager {
                                 + platformRegistration.getPlatform().getId(), e);
                     }
                 }
+
+                String platformId = platformRegistration.getPlatform().getId();
+                unregistrationListeners.forEach(listener -> listener.accept(platformId));
             }
         }
     }
 
+    /**
+     * Adds a listener called with the ID of every platform unregistered, while the platform lock is held.
+     * @param listener listener to add.
+     */
+    public void addUnregistrationListener(Consumer<String> listener) {
+        unregistrationListeners.add(listener);
+    }
+
+    public void removeUnregistrationListener(Consumer<String> listener) {
+        unregistrationListeners.remove(listener);
+    }
+
     @Override
     public Collection<Platform> getPlatforms() {
         return Collections.unmodifiableCollection(systemDatabase.execute(s -> {
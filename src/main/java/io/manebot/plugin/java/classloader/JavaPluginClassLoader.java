@@ -42,6 +42,14 @@ public final class JavaPluginClassLoader extends ClassLoader implements LocalCla
             this.source = source;
         }
 
+        /**
+         * Gets the plugin instance this class loader belongs to
+         * @return Plugin instance
+         */
+        public JavaPluginInstance getInstance() {
+            return instance;
+        }
+
         @Override
         public ClassLoader getBaseClassLoader() {
             return this;
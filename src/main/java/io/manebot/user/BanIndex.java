@@ -0,0 +1,121 @@
+package io.manebot.user;
+
+import io.manebot.util.TimerWheel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of the bans currently in effect, by username, so the ban check made for every command does not go
+ * to the database.  The index is loaded from the database, kept up to date as bans are issued and pardoned, and
+ * forgets each ban when it ends.
+ */
+public final class BanIndex implements AutoCloseable {
+    private static final long RELOAD_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final UserManager userManager;
+    private final Map<String, UserBan> bans = new ConcurrentHashMap<>();
+    private final TimerWheel<Runnable> timers;
+
+    public BanIndex(UserManager userManager) {
+        this.userManager = userManager;
+
+        // One-second ticks; a one-hour wheel keeps most bans within a few rounds.
+        this.timers = new TimerWheel<>("ban-index", 1, TimeUnit.SECONDS, 3600, Runnable::run);
+    }
+
+    /**
+     * Loads the index, and reloads it periodically from then on to pick up bans issued other than through the ban
+     * commands.
+     */
+    public void start() {
+        reload();
+        timers.schedule(this::reloadPeriodically, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces the index with the bans currently in effect in the database.
+     */
+    public void reload() {
+        Map<String, UserBan> current = new ConcurrentHashMap<>();
+        for (UserBan ban : userManager.getCurrentBans())
+            if (!ban.isPardoned()) current.merge(ban.getUser().getName(), ban, BanIndex::latest);
+
+        bans.keySet().retainAll(current.keySet());
+        current.values().forEach(this::add);
+    }
+
+    /**
+     * Gets the ban in effect for a user.
+     * @param user user to check.
+     * @return ban in effect, or null if the user is not banned.
+     */
+    public UserBan getBan(User user) {
+        UserBan ban = bans.get(user.getName());
+        if (ban == null) return null;
+
+        // The wheel may not have removed a ban that just ended.
+        if (ban.isPardoned() || ban.getEnd().getTime() <= System.currentTimeMillis()) {
+            bans.remove(user.getName(), ban);
+            return null;
+        }
+
+        return ban;
+    }
+
+    /**
+     * Adds a newly issued ban to the index.
+     * @param ban ban to add.
+     */
+    public void add(UserBan ban) {
+        long remaining = ban.getEnd().getTime() - System.currentTimeMillis();
+        if (ban.isPardoned() || remaining <= 0L) return;
+
+        String username = ban.getUser().getName();
+        UserBan indexed = bans.merge(username, ban, BanIndex::latest);
+        if (indexed == ban) timers.schedule(() -> bans.remove(username, ban), remaining, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Brings the index up to date with a ban that was issued or changed, such as a ban issued or pardoned through the
+     * plugin API.
+     * @param ban ban that was written.
+     */
+    public void update(UserBan ban) {
+        if (ban.isPardoned()) bans.remove(ban.getUser().getName(), ban);
+        else add(ban);
+    }
+
+    /**
+     * Removes a user's ban from the index once it has been pardoned.
+     * @param user user whose ban was pardoned.
+     */
+    public void remove(User user) {
+        bans.remove(user.getName());
+    }
+
+    /**
+     * Gets the number of bans in the index.
+     */
+    public int size() {
+        return bans.size();
+    }
+
+    private void reloadPeriodically() {
+        try {
+            reload();
+        } finally {
+            timers.schedule(this::reloadPeriodically, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static UserBan latest(UserBan a, UserBan b) {
+        return b.getEnd().after(a.getEnd()) ? b : a;
+    }
+
+    @Override
+    public void close() {
+        timers.close();
+    }
+}
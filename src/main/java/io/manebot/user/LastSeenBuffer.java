@@ -0,0 +1,123 @@
+package io.manebot.user;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer for users' last seen dates.  Commands record the date here instead of writing it to the
+ * database; only the newest date per user is kept, and the buffer is written out periodically, when it reaches a size
+ * threshold, and when it is closed.
+ */
+public final class LastSeenBuffer implements AutoCloseable {
+    private final Map<User, Date> pending = new ConcurrentHashMap<>();
+    private final int threshold;
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+
+    // Held for reading while a date is buffered, and for writing while closing, so no date is buffered after the
+    // final flush.
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed = false;
+
+    /**
+     * Creates and starts a last seen buffer.
+     * @param interval interval between flushes.
+     * @param unit unit of the interval.
+     * @param threshold number of buffered users that triggers a flush before the interval is up.
+     */
+    public LastSeenBuffer(long interval, TimeUnit unit, int threshold) {
+        if (interval <= 0L) throw new IllegalArgumentException("interval must be positive");
+        if (threshold <= 0) throw new IllegalArgumentException("threshold must be positive");
+
+        this.threshold = threshold;
+
+        ScheduledThreadPoolExecutor flusher = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "last-seen");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, unit);
+        this.flusher = flusher;
+    }
+
+    /**
+     * Records that a user was seen.
+     * @param user user seen.
+     * @param date date the user was seen.
+     */
+    public void touch(User user, Date date) {
+        boolean buffered;
+
+        closeLock.readLock().lock();
+        try {
+            buffered = !closed;
+            if (buffered) pending.merge(user, date, (older, newer) -> newer.after(older) ? newer : older);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        if (!buffered) {
+            user.setLastSeenDate(date);
+            return;
+        }
+
+        if (pending.size() >= threshold && flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException ex) {
+                // Closing; close() flushes whatever is left.
+                flushQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes every buffered date to the database.
+     */
+    public void flush() {
+        flushQueued.set(false);
+
+        synchronized (flushLock) {
+            for (User user : pending.keySet()) {
+                // A date recorded after this removal stays buffered for the next flush.
+                Date date = pending.remove(user);
+                if (date == null) continue;
+
+                try {
+                    user.setLastSeenDate(date);
+                } catch (RuntimeException e) {
+                    Logger.getGlobal().log(Level.WARNING, "Problem saving last seen date for " + user.getName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of users with a date waiting to be written.
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        flusher.shutdown();
+        flush();
+    }
+}
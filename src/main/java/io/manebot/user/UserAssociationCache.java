@@ -0,0 +1,220 @@
+package io.manebot.user;
+
+import io.manebot.platform.Platform;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of user associations by platform and platform user ID, so the association lookup made for every
+ * command does not go to the database.  Unknown platform users are cached too, for a shorter time, so messages from
+ * unregistered users do not each query the database.  Entries expire after a time to live, and are invalidated when
+ * associations are created or removed, including through the plugin API.
+ */
+public final class UserAssociationCache {
+    private final int maximumSize;
+    private final long ttl;
+    private final long negativeTtl;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong(0L);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a user association cache.
+     * @param maximumSize maximum number of entries, known and unknown.
+     * @param ttl time a known association is cached for.
+     * @param negativeTtl time an unknown platform user is cached for.
+     * @param unit unit of the times to live.
+     */
+    public UserAssociationCache(int maximumSize, long ttl, long negativeTtl, TimeUnit unit) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximum size must be positive");
+        if (ttl < 0L || negativeTtl < 0L) throw new IllegalArgumentException("time to live must not be negative");
+
+        this.maximumSize = maximumSize;
+        this.ttl = unit.toNanos(ttl);
+        this.negativeTtl = unit.toNanos(negativeTtl);
+    }
+
+    /**
+     * Gets the association of a platform user, looking it up on the platform if it is not cached.
+     * @param platform platform the user is on.
+     * @param id platform-specific ID of the user.
+     * @return association, or null if the platform user is not associated with a user.
+     */
+    public UserAssociation getUserAssociation(Platform platform, String id) {
+        Key key = new Key(platform.getId(), id);
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (now - entry.expires < 0L) {
+                if (entry.association != null) hits.increment();
+                else negativeHits.increment();
+
+                return entry.association;
+            }
+
+            entries.remove(key, entry);
+        }
+
+        misses.increment();
+
+        // An association created or removed during the lookup may not be reflected in its result.
+        long generation = invalidations.get();
+        UserAssociation association = platform.getUserAssocation(id);
+
+        long timeToLive = association != null ? ttl : negativeTtl;
+        if (timeToLive <= 0L) return association;
+
+        entry = new Entry(association, System.nanoTime() + timeToLive);
+        entries.put(key, entry);
+
+        if (invalidations.get() != generation) entries.remove(key, entry);
+        else if (entries.size() > maximumSize) evict();
+
+        return association;
+    }
+
+    /**
+     * Forgets a platform user's association, once it has been created or removed.
+     * @param platform platform the user is on.
+     * @param id platform-specific ID of the user.
+     */
+    public void invalidate(Platform platform, String id) {
+        invalidations.incrementAndGet();
+        entries.remove(new Key(platform.getId(), id));
+    }
+
+    /**
+     * Forgets an association's platform user, once the association has been created or removed.
+     * @param association association created or removed.
+     */
+    public void invalidate(UserAssociation association) {
+        Platform platform = association.getPlatform();
+
+        // An unregistered platform's entries are not found by its ID alone.
+        if (platform != null) invalidate(platform, association.getPlatformId());
+        else invalidateAll();
+    }
+
+    /**
+     * Forgets every association.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of lookups answered with a cached association.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups answered with a cached unknown platform user.
+     */
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that went to the platform.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries removed to keep the cache within its maximum size.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of cached entries, known and unknown.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Removes expired entries, then arbitrary entries until the cache is within its maximum size.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expires >= 0L);
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Reads a user association cache.  <i>size</i> sets the maximum number of entries (by default, 4096), <i>ttl</i>
+     * the seconds a known association is cached for (by default, 300), and <i>negative-ttl</i> the seconds an unknown
+     * platform user is cached for (by default, 30).  A time to live of 0 does not cache those entries.
+     * @param properties properties to read.
+     * @return user association cache.
+     */
+    public static UserAssociationCache fromProperties(Properties properties) {
+        return new UserAssociationCache(
+                Integer.parseInt(properties.getProperty("size", "4096")),
+                Long.parseLong(properties.getProperty("ttl", "300")),
+                Long.parseLong(properties.getProperty("negative-ttl", "30")),
+                TimeUnit.SECONDS
+        );
+    }
+
+    private static final class Key {
+        private final String platformId;
+        private final String id;
+
+        private Key(String platformId, String id) {
+            this.platformId = platformId;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return platformId.equals(key.platformId) && Objects.equals(id, key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * platformId.hashCode() + Objects.hashCode(id);
+        }
+    }
+
+    private static final class Entry {
+        private final UserAssociation association;
+        private final long expires;
+
+        private Entry(UserAssociation association, long expires) {
+            this.association = association;
+            this.expires = expires;
+        }
+    }
+}
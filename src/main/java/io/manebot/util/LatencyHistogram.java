@@ -0,0 +1,90 @@
+package io.manebot.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram: each power of two is split into
+ * 8 linear sub-buckets, so any recorded value is reported within 12.5% of its true value.  Recording is a handful of
+ * atomic increments and never allocates.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanoseconds latency, in nanoseconds.
+     */
+    public void record(long nanoseconds) {
+        if (nanoseconds < 0) nanoseconds = 0;
+
+        counts.incrementAndGet(indexOf(nanoseconds));
+        count.increment();
+        total.add(nanoseconds);
+
+        long currentMax;
+        while (nanoseconds > (currentMax = max.get()))
+            if (max.compareAndSet(currentMax, nanoseconds)) break;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public double getMean(TimeUnit unit) {
+        long n = count.sum();
+        if (n <= 0) return 0D;
+        return (double) total.sum() / (double) n / (double) unit.toNanos(1);
+    }
+
+    /**
+     * Gets the value at a percentile.
+     * @param percentile percentile, between 0 and 100.
+     * @param unit unit to return the value in.
+     * @return the highest value equivalent to the bucket the percentile falls in, capped at the recorded maximum.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i ++) n += counts.get(i);
+        if (n <= 0) return 0L;
+
+        long target = Math.max(1L, (long) Math.ceil((Math.min(100D, Math.max(0D, percentile)) / 100D) * n));
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i ++) {
+            seen += counts.get(i);
+            if (seen >= target)
+                return unit.convert(Math.min(highestValueOf(i), max.get()), TimeUnit.NANOSECONDS);
+        }
+
+        return getMax(unit);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = ((long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1)))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
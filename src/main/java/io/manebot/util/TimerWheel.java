@@ -0,0 +1,146 @@
+package io.manebot.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel.  Timeouts are placed in one of a fixed ring of slots by their deadline, and a single thread
+ * visits one slot per tick, so scheduling is constant-time however far away the deadline is, and a tick only touches
+ * the timeouts in its slot.  Timeouts fire up to one tick late.
+ *
+ * @param <T> type of value carried by each timeout.
+ */
+public final class TimerWheel<T> implements AutoCloseable {
+    private final long tick;
+    private final List<Timeout>[] slots;
+    private final Consumer<? super T> action;
+    private final ScheduledExecutorService ticker;
+
+    private long ticks = 0L;
+
+    /**
+     * Creates and starts a timer wheel.
+     * @param name name of the wheel's thread.
+     * @param tick length of one tick.
+     * @param unit unit of the tick length.
+     * @param size number of slots in the wheel.
+     * @param action action to run with the value of each timeout that fires, on the wheel's thread.
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tick, TimeUnit unit, int size, Consumer<? super T> action) {
+        if (tick <= 0L) throw new IllegalArgumentException("tick must be positive");
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+
+        this.tick = unit.toNanos(tick);
+        this.slots = new List[size];
+        for (int i = 0; i < size; i ++) slots[i] = new ArrayList<>();
+        this.action = action;
+
+        ScheduledThreadPoolExecutor ticker = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ticker.scheduleAtFixedRate(this::advance, this.tick, this.tick, TimeUnit.NANOSECONDS);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Schedules a timeout.
+     * @param value value to run the wheel's action with when the timeout fires.
+     * @param delay delay until the timeout fires.
+     * @param unit unit of the delay.
+     * @return timeout, which can be cancelled.
+     */
+    public Timeout schedule(T value, long delay, TimeUnit unit) {
+        // The current tick is partly over, so one more tick is counted for it.
+        long delayTicks = (unit.toNanos(Math.max(0L, delay)) + tick - 1L) / tick + 1L;
+
+        synchronized (this) {
+            Timeout timeout = new Timeout(value, (ticks + delayTicks) % slots.length, (delayTicks - 1L) / slots.length);
+            slots[(int) timeout.slot].add(timeout);
+            return timeout;
+        }
+    }
+
+    /**
+     * Gets the number of timeouts waiting to fire.
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Timeout> slot : slots) size += slot.size();
+        return size;
+    }
+
+    private void advance() {
+        List<T> expired = new ArrayList<>();
+
+        synchronized (this) {
+            ticks ++;
+
+            Iterator<Timeout> iterator = slots[(int) (ticks % slots.length)].iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.rounds > 0L) {
+                    timeout.rounds --;
+                    continue;
+                }
+
+                iterator.remove();
+                timeout.slot = -1L;
+                expired.add(timeout.value);
+            }
+        }
+
+        for (T value : expired) {
+            try {
+                action.accept(value);
+            } catch (Throwable e) {
+                Logger.getGlobal().log(Level.WARNING, "Problem running timer wheel action", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    public final class Timeout {
+        private final T value;
+        private long slot;
+        private long rounds;
+
+        private Timeout(T value, long slot, long rounds) {
+            this.value = value;
+            this.slot = slot;
+            this.rounds = rounds;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Cancels the timeout.
+         * @return true if the timeout was cancelled, false if it already fired or was cancelled.
+         */
+        public boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if (slot < 0L) return false;
+
+                slots[(int) slot].remove(this);
+                slot = -1L;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.manebot.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (JDK 21+) while the project still compiles against an older language level.
+ */
+public final class VirtualThreads {
+    private static final boolean supported = probe();
+
+    private VirtualThreads() { }
+
+    /**
+     * Finds if virtual threads can be created on the running JVM.
+     * @return true if virtual threads are supported, false otherwise.
+     */
+    public static boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Creates a thread factory producing virtual threads named with the specified prefix and an incrementing counter.
+     * @param prefix thread name prefix.
+     * @return virtual thread factory.
+     * @throws UnsupportedOperationException if virtual threads are not supported on the running JVM.
+     */
+    public static ThreadFactory newThreadFactory(String prefix) throws UnsupportedOperationException {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (InvocationTargetException e) {
+            // e.g. preview feature not enabled on JDK 19/20
+            throw new UnsupportedOperationException("virtual threads are not available", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("virtual threads are not supported by this JVM", e);
+        }
+    }
+
+    private static boolean probe() {
+        try {
+            newThreadFactory("probe-");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
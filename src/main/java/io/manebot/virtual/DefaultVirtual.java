@@ -2,18 +2,22 @@ package io.manebot.virtual;
 
 import io.manebot.security.Permission;
 import io.manebot.user.User;
+import io.manebot.util.VirtualThreads;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public final class DefaultVirtual extends Virtual {
-    private final Set<VirtualProcess> processes = new HashSet<>();
-    private final Map<Thread, VirtualProcess> threadMap = new LinkedHashMap<>();
+    private final Set<VirtualProcess> processes = ConcurrentHashMap.newKeySet();
+    private final Map<Thread, VirtualProcess> threadMap = new ConcurrentHashMap<>();
     private final VirtualProcess root;
     private final Logger logger;
 
+    private volatile ThreadFactory virtualThreadFactory;
+
     public DefaultVirtual(User currentUser) {
         this.logger = Logger.getLogger("Virtual");
 
@@ -65,10 +69,59 @@ public final class DefaultVirtual extends Virtual {
         return create(currentProcess, runnable);
     }
 
+    /**
+     * Creates a process, as <i>create</i> does, that runs on a virtual thread rather than a platform thread.  The
+     * process is otherwise identical: it inherits the calling process's user, and is visible to currentProcess() and
+     * the permission system while it runs.
+     * @param runnable runnable to execute in the process.
+     * @return unstarted process.
+     * @throws UnsupportedOperationException if virtual threads are not supported on the running JVM.
+     */
+    public VirtualProcess createVirtual(Runnable runnable) throws UnsupportedOperationException {
+        ThreadFactory threadFactory = virtualThreadFactory;
+        if (threadFactory == null) {
+            synchronized (this) {
+                if ((threadFactory = virtualThreadFactory) == null)
+                    virtualThreadFactory = threadFactory = VirtualThreads.newThreadFactory("virtual-");
+            }
+        }
+
+        return create(getProcess(Thread.currentThread()), runnable, threadFactory);
+    }
+
+    /**
+     * Runs a task in the calling process as another user, restoring the process's original user afterwards.  This
+     * lets one worker process serve commands for many users in turn.
+     * @param user user to run the task as, or null to run it with no user.
+     * @param runnable task to run.
+     * @throws SecurityException if the caller is not a virtual process, or is not permitted to change its user.
+     */
+    public void runAs(User user, Runnable runnable) throws SecurityException {
+        VirtualProcess current = getProcess(Thread.currentThread());
+        if (!(current instanceof DefaultVirtualProcess)) throw new SecurityException("caller is not a process");
+
+        DefaultVirtualProcess process = (DefaultVirtualProcess) current;
+        User previous = process.user;
+        if (previous != user) Permission.checkPermission("system.process.changeuser");
+
+        process.user = user;
+
+        try {
+            runnable.run();
+        } finally {
+            process.user = previous;
+        }
+    }
+
     private DefaultVirtualProcess create(VirtualProcess parent, Runnable runnable) {
+        return create(parent, runnable, Thread::new);
+    }
+
+    private DefaultVirtualProcess create(VirtualProcess parent, Runnable runnable, ThreadFactory threadFactory) {
         return registerProcess(new DefaultVirtualProcess(
                 parent,
                 runnable,
+                threadFactory,
                 parent == null ? null : parent.getUser()
         ));
     }
@@ -85,11 +138,12 @@ public final class DefaultVirtual extends Virtual {
         private final Logger logger;
 
         private String description;
-        private User user;
+        private volatile User user;
 
-        private DefaultVirtualProcess(VirtualProcess parent, Runnable runnable, User user) {
+        private DefaultVirtualProcess(VirtualProcess parent, Runnable runnable, ThreadFactory threadFactory,
+                                      User user) {
             this.parent = parent;
-            this.thread = new Thread(new Execution(this, runnable));
+            this.thread = threadFactory.newThread(new Execution(this, runnable));
             this.profiler = new Profiler("root", null);
             this.user = user;
             this.description = thread.getName();
@@ -128,12 +182,19 @@ public final class DefaultVirtual extends Virtual {
             thread.interrupt();
         }
 
+        /**
+         * Processes can no longer be stopped outright.  Use {@link #interrupt()} to ask a process to stop; commands
+         * still running are cancelled at their deadline, and their shells abandoned to them.
+         * @throws UnsupportedOperationException always, once the caller is allowed to control the process.
+         */
         @Override
         @Deprecated
         public void kill() {
             if (!canControl()) throw new SecurityException("cannot control");
 
-            thread.stop();
+            throw new UnsupportedOperationException(
+                    "processes cannot be stopped outright; interrupt them, or cancel their commands"
+            );
         }
 
         @Override
@@ -0,0 +1,270 @@
+package io.manebot.command;
+
+import io.manebot.chat.BasicTextChatMessage;
+import io.manebot.chat.Chat;
+import io.manebot.command.exception.CommandArgumentException;
+import io.manebot.command.exception.CommandExecutionException;
+import io.manebot.command.executor.CommandExecutor;
+import io.manebot.conversation.Conversation;
+import io.manebot.event.EventDispatcher;
+import io.manebot.platform.PlatformUser;
+import io.manebot.user.User;
+import io.manebot.virtual.DefaultVirtual;
+import io.manebot.virtual.Virtual;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class AbstractCommandShellTest {
+    private final List<String> replies = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger buffers = new AtomicInteger();
+    private boolean buffered = false;
+
+    private final User user = proxy(User.class, "user");
+
+    private final EventDispatcher eventDispatcher = (EventDispatcher) Proxy.newProxyInstance(
+            EventDispatcher.class.getClassLoader(),
+            new Class<?>[] { EventDispatcher.class },
+            (proxy, method, args) -> args != null && args.length > 0 ? args[0] : null
+    );
+
+    private final Chat chat = (Chat) Proxy.newProxyInstance(
+            Chat.class.getClassLoader(),
+            new Class<?>[] { Chat.class },
+            (proxy, method, args) -> method.getName().equals("isBuffered") ? buffered : null
+    );
+
+    private final CommandSender sender = new CommandSender(proxy(PlatformUser.class, "user"), chat) {
+        @Override
+        public CommandSender getParent() {
+            return null;
+        }
+
+        @Override
+        public Conversation getConversation() {
+            return null;
+        }
+
+        @Override
+        public User getUser() {
+            return user;
+        }
+    };
+
+    private final DefaultCommandManager commandManager = new DefaultCommandManager();
+
+    public AbstractCommandShellTest() {
+        if (Virtual.getInstance() == null) Virtual.setInstance(new DefaultVirtual(user));
+    }
+
+    private static <T> T proxy(Class<T> type, String name) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    if (method.getReturnType() == String.class) return name;
+
+                    switch (method.getName()) {
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                }));
+    }
+
+    /**
+     * Registers a command that records the label it was run with.
+     */
+    private void register(String label) {
+        register(label, () -> {});
+    }
+
+    /**
+     * Registers a command that records the label it was run with, then runs an action.
+     */
+    private void register(String label, Action action) {
+        commandManager.registerExecutor(label, new CommandExecutor() {
+            @Override
+            public void execute(CommandSender sender, String label, String[] args) throws CommandExecutionException {
+                executed.add(label);
+                action.run();
+            }
+
+            @Override
+            public String getDescription() {
+                return "";
+            }
+
+            @Override
+            public boolean isBuffered() {
+                return buffered;
+            }
+        });
+    }
+
+    private void run(CommandBatchPolicy batchPolicy, String message) {
+        new TestShell(batchPolicy).handleCommand(
+                new AsyncCommand(new CommandMessage(new BasicTextChatMessage(sender, message), sender))
+        );
+    }
+
+    @Test
+    public void testAbbreviationSuggested() {
+        register("shutdown");
+        register("status");
+
+        run(null, "shut");
+
+        // Not run: a unique abbreviation is only suggested by default
+        assertEquals(0, executed.size());
+        assertEquals(1, replies.size());
+        assertTrue(replies.get(0).endsWith(" Did you mean shutdown?"));
+    }
+
+    @Test
+    public void testAbbreviationRun() {
+        register("shutdown");
+        register("status");
+        commandManager.setRunAbbreviations(true);
+
+        run(null, "shut");
+        run(null, "s");
+
+        // "s" is ambiguous, so it is not run
+        assertEquals(Collections.singletonList("shutdown"), executed);
+        assertEquals(1, replies.size());
+    }
+
+    @Test
+    public void testBatchLimit() {
+        register("a");
+        register("b");
+        register("c");
+        register("d");
+
+        run(new CommandBatchPolicy(2, true), "a\nb\nc\nd");
+
+        assertEquals(Arrays.asList("a", "b"), executed);
+        assertEquals(Collections.singletonList("2 more command(s) were not run."), replies);
+    }
+
+    @Test
+    public void testBatchStopOnError() {
+        register("a");
+        register("fail", () -> {
+            throw new CommandArgumentException("failed");
+        });
+        register("c");
+
+        run(new CommandBatchPolicy(10, true), "a\nfail\nc");
+
+        assertEquals(Arrays.asList("a", "fail"), executed);
+        assertEquals(Arrays.asList("Problem executing command: failed", "1 more command(s) were not run."), replies);
+
+        // Without stopping on errors, the rest of the batch still runs.
+        executed.clear();
+        replies.clear();
+        run(new CommandBatchPolicy(10, false), "a\nfail\nc");
+
+        assertEquals(Arrays.asList("a", "fail", "c"), executed);
+        assertEquals(Collections.singletonList("Problem executing command: failed"), replies);
+    }
+
+    @Test
+    public void testBatchCancelled() {
+        register("a");
+        register("cancel", () -> CancellationToken.current().cancel(CancellationToken.Reason.CANCELLED));
+        register("c");
+        register("d");
+
+        run(new CommandBatchPolicy(10, true), "a\ncancel\nc\nd");
+
+        // The command that was running finishes; the lines after it are not started.
+        assertEquals(Arrays.asList("a", "cancel"), executed);
+        assertEquals(Collections.singletonList("2 more command(s) were not run."), replies);
+
+        // The interrupt that cancelled the command does not outlive it.
+        assertFalse(Thread.interrupted());
+    }
+
+    @Test
+    public void testBatchSharesBuffer() {
+        buffered = true;
+        register("a");
+        register("b");
+        register("c");
+
+        run(new CommandBatchPolicy(10, true), "a\nb\nc");
+
+        assertEquals(Arrays.asList("a", "b", "c"), executed);
+        assertEquals(1, buffers.get());
+
+        // Each message gets its own buffer.
+        run(new CommandBatchPolicy(10, true), "a\nb");
+        assertEquals(2, buffers.get());
+    }
+
+    private interface Action {
+        void run() throws CommandExecutionException;
+    }
+
+    private final class TestShell extends AbstractCommandShell {
+        private TestShell(CommandBatchPolicy batchPolicy) {
+            super(commandManager, eventDispatcher, null, null, null, batchPolicy, null);
+        }
+
+        @Override
+        public User getUser() {
+            return user;
+        }
+
+        @Override
+        protected void reply(CommandSender sender, String message) {
+            replies.add(message);
+        }
+
+        @Override
+        protected void begin(CommandSender sender) {
+            buffers.incrementAndGet();
+        }
+
+        @Override
+        public void execute(CommandMessage commandMessage) throws CommandExecutionException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Boolean> executeAsync(CommandMessage commandMessage) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void ensureOpen() {
+            // Always open
+        }
+
+        @Override
+        protected void abandon() {
+            // Nothing to give up
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class ActorCommandShellTest {
+
+    private static User user(String name) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName": return name;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        case "toString": return name;
+                        default: return null;
+                    }
+                });
+    }
+
+    private static ActorCommandShell shell(Executor workers) {
+        User user = user("user");
+
+        return new ActorCommandShell(
+                null, null, null, null, null, null, null,
+                user,
+                new ShellBacklog(user, new ShellBacklogPolicy(), new ShellBacklogStatistics()),
+                null,
+                workers
+        );
+    }
+
+    private static CommandMessage message() {
+        return new CommandMessage(null, null);
+    }
+
+    @Test
+    public void testOneTurnAtATime() {
+        List<Runnable> turns = new ArrayList<>();
+        ActorCommandShell shell = shell(turns::add);
+
+        shell.executeAsync(message());
+        shell.executeAsync(message());
+
+        // The second command waits in the mailbox for the first command's turn to end.
+        assertEquals(1, turns.size());
+        assertFalse(shell.isIdle());
+    }
+
+    @Test
+    public void testAbandon() {
+        ActorCommandShell shell = shell(turn -> {});
+
+        Future<Boolean> first = shell.executeAsync(message());
+        Future<Boolean> second = shell.executeAsync(message());
+
+        shell.abandon();
+
+        assertFalse(shell.isOpen());
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+
+        boolean refused = false;
+        try {
+            shell.executeAsync(message());
+        } catch (IllegalStateException ex) {
+            refused = true;
+        }
+
+        assertTrue(refused);
+    }
+
+    @Test
+    public void testCloseIfIdle() {
+        ActorCommandShell shell = shell(turn -> {});
+
+        Future<Boolean> command = shell.executeAsync(message());
+
+        assertFalse(shell.closeIfIdle());
+        assertTrue(shell.isOpen());
+
+        ((CompletableFuture<Boolean>) command).complete(true);
+
+        assertTrue(shell.closeIfIdle());
+        assertFalse(shell.isOpen());
+
+        // Refused rather than queued, so the dispatcher sends it to the user's next shell.
+        boolean refused = false;
+        try {
+            shell.executeAsync(message());
+        } catch (IllegalStateException ex) {
+            refused = true;
+        }
+
+        assertTrue(refused);
+        assertTrue(shell.isIdle());
+    }
+
+    @Test
+    public void testWorkersNotRunning() {
+        ActorCommandShell shell = shell(turn -> {
+            throw new RejectedExecutionException();
+        });
+
+        boolean refused = false;
+        try {
+            shell.executeAsync(message());
+        } catch (IllegalStateException ex) {
+            refused = true;
+        }
+
+        assertTrue(refused);
+        assertTrue(shell.isIdle());
+    }
+}
@@ -0,0 +1,69 @@
+package io.manebot.command;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class CancellationTokenTest {
+
+    @Test
+    public void testNoCommand() {
+        CancellationToken token = CancellationToken.current();
+
+        assertFalse(token.isCancelled());
+        assertNull(token.getReason());
+        token.throwIfCancelled();
+    }
+
+    @Test
+    public void testCancel() {
+        CancellationToken token = new CancellationToken();
+        token.bind();
+
+        try {
+            assertSame(token, CancellationToken.current());
+            assertTrue(token.isBound());
+
+            assertTrue(token.cancel(CancellationToken.Reason.TIMEOUT));
+            assertFalse(token.cancel(CancellationToken.Reason.CANCELLED));
+
+            assertTrue(token.isCancelled());
+            assertEquals(CancellationToken.Reason.TIMEOUT, token.getReason());
+            assertTrue(Thread.currentThread().isInterrupted());
+
+            boolean thrown = false;
+            try {
+                token.throwIfCancelled();
+            } catch (CancellationException ex) {
+                thrown = true;
+            }
+
+            assertTrue(thrown);
+        } finally {
+            token.unbind();
+        }
+
+        // Unbinding clears the interrupt the token caused, and the thread's token.
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertFalse(token.isBound());
+        assertFalse(CancellationToken.current().isCancelled());
+    }
+
+    @Test
+    public void testCancelUnbound() {
+        CancellationToken token = new CancellationToken();
+
+        assertTrue(token.cancel(CancellationToken.Reason.CANCELLED));
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        token.bind();
+        token.unbind();
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
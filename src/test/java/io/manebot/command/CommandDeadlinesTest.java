@@ -0,0 +1,158 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+import io.manebot.util.TimerWheel;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class CommandDeadlinesTest {
+
+    private static ActorCommandShell shell() {
+        User user = (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> method.getName().equals("getName") ? "user" : null);
+
+        return new ActorCommandShell(
+                null, null, null, null, null, null, null,
+                user,
+                new ShellBacklog(user, new ShellBacklogPolicy(), new ShellBacklogStatistics()),
+                null,
+                turn -> {}
+        );
+    }
+
+    /**
+     * Runs a command on its own thread until it is interrupted, or until <i>stop</i> is set if it ignores interrupts.
+     */
+    private static Thread run(AsyncCommand command, boolean ignoreInterrupts, AtomicBoolean stop)
+            throws InterruptedException {
+        CountDownLatch bound = new CountDownLatch(1);
+
+        Thread thread = new Thread(() -> {
+            command.getToken().bind();
+            bound.countDown();
+
+            try {
+                while (!stop.get()) {
+                    try {
+                        Thread.sleep(10L);
+                    } catch (InterruptedException e) {
+                        if (!ignoreInterrupts) return;
+                    }
+                }
+            } finally {
+                command.getToken().unbind();
+            }
+        });
+
+        thread.start();
+        bound.await();
+        return thread;
+    }
+
+    private static Throwable cause(AsyncCommand command) throws InterruptedException {
+        try {
+            command.getFuture().get();
+            return null;
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        }
+    }
+
+    @Test
+    public void testFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("label.ping", "100");
+
+        CommandDeadlines deadlines = CommandDeadlines.fromProperties(properties);
+
+        assertTrue(deadlines.isEnabled());
+        assertEquals(100L, deadlines.getTimeout("ping"));
+        assertEquals(0L, deadlines.getTimeout("help"));
+
+        deadlines.close();
+    }
+
+    @Test
+    public void testDisabled() {
+        CommandDeadlines deadlines = CommandDeadlines.fromProperties(new Properties());
+
+        assertFalse(deadlines.isEnabled());
+        assertNull(deadlines.start(shell(), new AsyncCommand(new CommandMessage(null, null)), "ping"));
+
+        deadlines.close();
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        CommandDeadlines deadlines = new CommandDeadlines(50L, Collections.emptyMap(), 5_000L);
+        ActorCommandShell shell = shell();
+        AsyncCommand command = new AsyncCommand(new CommandMessage(null, null));
+
+        Thread thread = run(command, false, new AtomicBoolean(false));
+        deadlines.start(shell, command, "ping");
+
+        // Interrupted at its deadline, and stops in time.
+        assertTrue(cause(command) instanceof TimeoutException);
+        thread.join(5_000L);
+        assertFalse(thread.isAlive());
+
+        // The timeout is counted just after the command is cancelled.
+        for (int i = 0; i < 100 && deadlines.getTimeouts() == 0L; i ++) Thread.sleep(10L);
+
+        assertEquals(CancellationToken.Reason.TIMEOUT, command.getToken().getReason());
+        assertEquals(1L, deadlines.getTimeouts());
+        assertEquals(0L, deadlines.getAbandoned());
+        assertTrue(shell.isOpen());
+
+        deadlines.close();
+    }
+
+    @Test
+    public void testAbandon() throws InterruptedException {
+        CommandDeadlines deadlines = new CommandDeadlines(50L, Collections.emptyMap(), 50L);
+        ActorCommandShell shell = shell();
+        AsyncCommand command = new AsyncCommand(new CommandMessage(null, null));
+        AtomicBoolean stop = new AtomicBoolean(false);
+
+        Thread thread = run(command, true, stop);
+        deadlines.start(shell, command, "ping");
+
+        assertTrue(cause(command) instanceof TimeoutException);
+        for (int i = 0; i < 100 && shell.isOpen(); i ++) Thread.sleep(50L);
+
+        // The command ignored its cancellation past the grace period, so its shell was given up.
+        assertFalse(shell.isOpen());
+        assertEquals(1L, deadlines.getAbandoned());
+
+        stop.set(true);
+        thread.join();
+        deadlines.close();
+    }
+
+    @Test
+    public void testCompleted() throws InterruptedException {
+        CommandDeadlines deadlines = new CommandDeadlines(50L, Collections.emptyMap(), 50L);
+        AsyncCommand command = new AsyncCommand(new CommandMessage(null, null));
+
+        TimerWheel<Runnable>.Timeout deadline = deadlines.start(shell(), command, "ping");
+        assertTrue(deadline.cancel());
+
+        Thread.sleep(200L);
+        assertFalse(command.getToken().isCancelled());
+        assertEquals(0L, deadlines.getTimeouts());
+
+        deadlines.close();
+    }
+}
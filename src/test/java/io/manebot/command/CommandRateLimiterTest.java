@@ -0,0 +1,126 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+import io.manebot.user.UserType;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class CommandRateLimiterTest {
+
+    private static User user(UserType type) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getType": return type;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    private static CommandRateLimiter limiter(String... keyValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) properties.setProperty(keyValues[i], keyValues[i + 1]);
+        return CommandRateLimiter.fromProperties(properties);
+    }
+
+    @Test
+    public void testBurst() {
+        // One command every 1000 seconds, two at once.
+        CommandRateLimiter limiter = limiter("user.rate", "0.001", "user.burst", "2");
+        User user = user(UserType.COMMON);
+
+        assertNull(limiter.acquire(user, "test", null));
+        assertNull(limiter.acquire(user, "test", null));
+
+        CommandRateLimiter.Throttle throttle = limiter.acquire(user, "test", null);
+        assertNotNull(throttle);
+        assertEquals(CommandRateLimiter.Scope.USER, throttle.getScope());
+        assertTrue(throttle.getWait(TimeUnit.SECONDS) > 0L);
+        assertTrue(throttle.isFirst());
+
+        // The sender is only told once.
+        assertFalse(limiter.acquire(user, "test", null).isFirst());
+
+        assertEquals(2L, limiter.getAllowed());
+        assertEquals(2L, limiter.getThrottled(CommandRateLimiter.Scope.USER));
+    }
+
+    @Test
+    public void testRefill() throws InterruptedException {
+        CommandRateLimiter limiter = limiter("user.rate", "50", "user.burst", "1");
+        User user = user(UserType.COMMON);
+
+        assertNull(limiter.acquire(user, "test", null));
+        assertNotNull(limiter.acquire(user, "test", null));
+
+        Thread.sleep(50L);
+        assertNull(limiter.acquire(user, "test", null));
+    }
+
+    @Test
+    public void testScopes() {
+        CommandRateLimiter limiter = limiter(
+                "user.rate", "0.001",
+                "platform.rate", "0.001", "platform.burst", "2",
+                "global.rate", "0.001", "global.burst", "3"
+        );
+
+        // Users have their own buckets, but share their platform's.
+        assertNull(limiter.acquire(user(UserType.COMMON), "a", null));
+        assertNull(limiter.acquire(user(UserType.COMMON), "a", null));
+        assertEquals(
+                CommandRateLimiter.Scope.PLATFORM,
+                limiter.acquire(user(UserType.COMMON), "a", null).getScope()
+        );
+
+        // Platforms share the global bucket.
+        assertNull(limiter.acquire(user(UserType.COMMON), "b", null));
+        assertEquals(
+                CommandRateLimiter.Scope.GLOBAL,
+                limiter.acquire(user(UserType.COMMON), "c", null).getScope()
+        );
+
+        assertEquals(5, limiter.getBucketCount(CommandRateLimiter.Scope.USER));
+        assertEquals(3, limiter.getBucketCount(CommandRateLimiter.Scope.PLATFORM));
+    }
+
+    @Test
+    public void testLabelLimits() {
+        CommandRateLimiter limiter = limiter("label.ping.user.rate", "0.001");
+        User user = user(UserType.COMMON);
+
+        assertTrue(limiter.hasLabelLimits());
+        assertNull(limiter.acquire(user, "test", "ping"));
+        assertNotNull(limiter.acquire(user, "test", "ping"));
+        assertNull(limiter.acquire(user, "test", "help"));
+    }
+
+    @Test
+    public void testExempt() {
+        CommandRateLimiter limiter = limiter("user.rate", "0.001");
+        User system = user(UserType.SYSTEM);
+
+        assertNull(limiter.acquire(system, "test", null));
+        assertNull(limiter.acquire(system, "test", null));
+        assertEquals(0, limiter.getBucketCount(CommandRateLimiter.Scope.USER));
+    }
+
+    @Test
+    public void testUnlimited() {
+        CommandRateLimiter limiter = new CommandRateLimiter();
+        assertFalse(limiter.isEnabled());
+
+        for (int i = 0; i < 100; i ++) assertNull(limiter.acquire(user(UserType.COMMON), "test", "ping"));
+    }
+}
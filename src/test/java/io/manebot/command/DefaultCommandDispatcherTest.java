@@ -0,0 +1,138 @@
+package io.manebot.command;
+
+import io.manebot.chat.BasicTextChatMessage;
+import io.manebot.chat.Chat;
+import io.manebot.command.alias.AliasedCommandExecutor;
+import io.manebot.command.executor.CommandExecutor;
+import io.manebot.conversation.Conversation;
+import io.manebot.database.model.CommandAlias;
+import io.manebot.event.EventDispatcher;
+import io.manebot.platform.Platform;
+import io.manebot.user.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class DefaultCommandDispatcherTest {
+    private final AtomicInteger executed = new AtomicInteger();
+
+    private final CommandShell shell = (CommandShell) Proxy.newProxyInstance(
+            CommandShell.class.getClassLoader(),
+            new Class<?>[] { CommandShell.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "executeAsync":
+                        executed.incrementAndGet();
+                        return CompletableFuture.completedFuture(true);
+                    case "isOpen":
+                        return true;
+                    default:
+                        return null;
+                }
+            }
+    );
+
+    private final EventDispatcher eventDispatcher = (EventDispatcher) Proxy.newProxyInstance(
+            EventDispatcher.class.getClassLoader(),
+            new Class<?>[] { EventDispatcher.class },
+            (proxy, method, args) -> args != null && args.length > 0 ? args[0] : null
+    );
+
+    private static <T> T proxy(Class<T> type, String id) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId": case "getName": return id;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                }));
+    }
+
+    private final User user = proxy(User.class, "user");
+    private final Platform platform = proxy(Platform.class, "platform");
+
+    private final Chat chat = (Chat) Proxy.newProxyInstance(
+            Chat.class.getClassLoader(),
+            new Class<?>[] { Chat.class },
+            (proxy, method, args) -> method.getName().equals("getPlatform") ? platform : null
+    );
+
+    private final CommandSender sender = new CommandSender(null, chat) {
+        @Override
+        public CommandSender getParent() {
+            return null;
+        }
+
+        @Override
+        public Conversation getConversation() {
+            return null;
+        }
+
+        @Override
+        public User getUser() {
+            return user;
+        }
+    };
+
+    /**
+     * Creates a command that does nothing.
+     */
+    private static CommandExecutor executor() {
+        return new CommandExecutor() {
+            @Override
+            public void execute(CommandSender sender, String label, String[] args) {
+                // Nothing to do
+            }
+
+            @Override
+            public String getDescription() {
+                return "";
+            }
+        };
+    }
+
+    private CommandMessage message(String text) {
+        return new CommandMessage(new BasicTextChatMessage(sender, text), sender);
+    }
+
+    @Test
+    public void testLabelLimitResolved() throws Exception {
+        DefaultCommandManager commandManager = new DefaultCommandManager();
+        commandManager.setRunAbbreviations(true);
+        commandManager.registerExecutor("status", executor()).alias("st");
+        commandManager.registerExecutor("s", new AliasedCommandExecutor(
+                commandManager,
+                new CommandAlias(null, "s", "status -v")
+        ));
+
+        // One "status" every 1000 seconds.
+        Properties properties = new Properties();
+        properties.setProperty("label.status.user.rate", "0.001");
+        properties.setProperty("label.status.user.burst", "1");
+
+        DefaultCommandDispatcher<CommandShell> dispatcher = new DefaultCommandDispatcher<>(
+                user -> shell,
+                eventDispatcher,
+                commandManager,
+                CommandRateLimiter.fromProperties(properties)
+        );
+
+        assertTrue(dispatcher.executeAsync(message("statu")).get());
+
+        // An abbreviation, a registered alias and a user alias all count against the command's own limit.
+        assertFalse(dispatcher.executeAsync(message("stat")).get());
+        assertFalse(dispatcher.executeAsync(message("st")).get());
+        assertFalse(dispatcher.executeAsync(message("s")).get());
+
+        assertEquals(1, executed.get());
+    }
+}
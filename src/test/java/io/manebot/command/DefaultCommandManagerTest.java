@@ -0,0 +1,123 @@
+package io.manebot.command;
+
+import io.manebot.command.alias.AliasedCommandExecutor;
+import io.manebot.command.executor.CommandExecutor;
+import io.manebot.database.model.CommandAlias;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+
+public class DefaultCommandManagerTest {
+    private static final CommandExecutor status = executor();
+
+    /**
+     * Creates a command that does nothing.
+     */
+    private static CommandExecutor executor() {
+        return new CommandExecutor() {
+            @Override
+            public void execute(CommandSender sender, String label, String[] args) {
+                // Nothing to do
+            }
+
+            @Override
+            public String getDescription() {
+                return "";
+            }
+        };
+    }
+
+    @Test
+    public void testResolveLabel() {
+        DefaultCommandManager commandManager = new DefaultCommandManager();
+        commandManager.registerExecutor("status", status).alias("st");
+        commandManager.registerExecutor("stats", executor());
+        commandManager.registerExecutor("s", new AliasedCommandExecutor(
+                commandManager,
+                new CommandAlias(null, "s", "st -v")
+        ));
+
+        assertEquals("status", commandManager.resolveLabel("status"));
+        assertEquals("status", commandManager.resolveLabel("st"));
+        assertEquals("status", commandManager.resolveLabel("s"));
+
+        // Abbreviations only run a command, and so resolve to it, once enabled.
+        assertEquals("statu", commandManager.resolveLabel("statu"));
+        commandManager.setRunAbbreviations(true);
+        assertEquals("status", commandManager.resolveLabel("statu"));
+
+        // Ambiguous and unknown labels are left as sent.
+        assertEquals("sta", commandManager.resolveLabel("sta"));
+        assertEquals("help", commandManager.resolveLabel("help"));
+    }
+
+    @Test
+    public void testResolveLabelUnregistered() {
+        DefaultCommandManager commandManager = new DefaultCommandManager();
+        commandManager.registerExecutor("status", status).alias("st");
+
+        commandManager.unregisterExecutor("status");
+
+        assertEquals("st", commandManager.resolveLabel("st"));
+    }
+
+    @Test
+    public void testRegistrationDuringLookup() throws InterruptedException {
+        DefaultCommandManager commandManager = new DefaultCommandManager();
+        commandManager.setRunAbbreviations(true);
+        commandManager.registerExecutor("status", status);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Simulates plugins registering and unregistering their commands while commands are looked up
+        Thread toggler = new Thread(() -> {
+            try {
+                for (int n = 0; running.get(); n ++) {
+                    String label = "plugin" + (n % 16);
+                    commandManager.registerExecutor(label, executor());
+                    commandManager.unregisterExecutor(label);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i ++) {
+            readers.add(new Thread(() -> {
+                try {
+                    for (int n = 0; n < 200_000; n ++) {
+                        // The permanent command is never missing from the registry or the index while others change
+                        assertSame(status, commandManager.getExecutor("status"));
+                        assertEquals("status", commandManager.getAbbreviatedLabel("stat"));
+                        assertEquals("status", commandManager.resolveLabel("stat"));
+                        commandManager.getSuggestions("plugn");
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        toggler.start();
+        for (Thread reader : readers) reader.start();
+        for (Thread reader : readers) reader.join();
+        running.set(false);
+        toggler.join();
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+
+        // Every temporary label left the index with its registration
+        assertEquals(1, commandManager.getRegistrations().size());
+        assertNull(commandManager.getAbbreviatedLabel("plugin"));
+        assertEquals(0, commandManager.getSuggestions("plugin1").size());
+    }
+}
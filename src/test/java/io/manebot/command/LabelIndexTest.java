@@ -0,0 +1,34 @@
+package io.manebot.command;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+
+public class LabelIndexTest {
+    private final LabelIndex index = LabelIndex.of(Arrays.asList(
+            "permission", "perm", "ping", "platform", "plugin", "profile", "user", "unban"
+    ));
+
+    @Test
+    public void testComplete() {
+        assertEquals("platform", index.complete("pla"));
+        assertEquals("unban", index.complete("un"));
+        assertEquals("permission", index.complete("permi"));
+
+        assertNull(index.complete("p"));
+        assertNull(index.complete("per"));
+        assertNull(index.complete("x"));
+    }
+
+    @Test
+    public void testSuggest() {
+        assertEquals(Collections.singletonList("ping"), index.suggest("pimg", 2, 3));
+        assertEquals(Arrays.asList("perm", "ping"), index.suggest("pim", 2, 3));
+        assertEquals(Collections.singletonList("plugin"), index.suggest("plguin", 2, 3));
+        assertEquals(Collections.emptyList(), index.suggest("shutdown", 2, 3));
+    }
+}
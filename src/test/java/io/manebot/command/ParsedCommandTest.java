@@ -0,0 +1,60 @@
+package io.manebot.command;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+
+public class ParsedCommandTest {
+
+    @Test
+    public void testParse() {
+        ParsedCommand command = ParsedCommand.parse("  User  Info\t\tManebot  \nsecond line");
+
+        assertEquals("User  Info\t\tManebot", command.getLine());
+        assertEquals("user", command.getLabel());
+        assertArrayEquals(new String[] { "Info", "Manebot" }, command.getArguments());
+    }
+
+    @Test
+    public void testParseEmpty() {
+        assertEquals("", ParsedCommand.parse("").getLabel());
+        assertEquals(0, ParsedCommand.parse(" \t ").getArguments().length);
+    }
+
+    @Test
+    public void testParseQuoted() {
+        ParsedCommand command = ParsedCommand.parse("say \"hello  world\" \"\" after\"joined\"");
+
+        assertArrayEquals(new String[] { "hello  world", "", "afterjoined" }, command.getArguments());
+    }
+
+    @Test
+    public void testParseUnterminatedQuote() {
+        ParsedCommand command = ParsedCommand.parse("say \"to the end\nnext line\"");
+
+        assertArrayEquals(new String[] { "to the end" }, command.getArguments());
+    }
+
+    @Test
+    public void testParseEscaped() {
+        ParsedCommand command = ParsedCommand.parse("say \\\"a b\\\" c\\ d \"e\\\"f\" g\\");
+
+        assertArrayEquals(new String[] { "\"a", "b\"", "c d", "e\"f", "g\\" }, command.getArguments());
+    }
+
+    @Test
+    public void testParseAll() {
+        List<ParsedCommand> commands = ParsedCommand.parseAll("ping\n\n  user info \"a\nb\"\r\n");
+
+        assertEquals(3, commands.size());
+        assertEquals("ping", commands.get(0).getLabel());
+        assertEquals("user info \"a", commands.get(1).getLine());
+        assertArrayEquals(new String[] { "info", "a" }, commands.get(1).getArguments());
+        assertEquals("b", commands.get(2).getLabel());
+
+        assertEquals(1, ParsedCommand.parseAll("\n \n").size());
+    }
+}
@@ -0,0 +1,143 @@
+package io.manebot.command;
+
+import io.manebot.chat.BasicTextChatMessage;
+import io.manebot.chat.Chat;
+import io.manebot.conversation.Conversation;
+import io.manebot.user.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class ShellBacklogTest {
+    private final ShellBacklogStatistics statistics = new ShellBacklogStatistics();
+    private final Chat chat = (Chat) Proxy.newProxyInstance(Chat.class.getClassLoader(), new Class<?>[] { Chat.class },
+            (proxy, method, args) -> method.getName().equals("equals") ? proxy == args[0] : null);
+
+    private ShellBacklog backlog(int size, ShellBacklogPolicy.Overflow overflow, long timeout) {
+        ShellBacklogPolicy policy = new ShellBacklogPolicy(
+                new ShellBacklogPolicy.Rule(size, overflow, timeout),
+                Collections.emptyMap(),
+                Collections.emptyMap()
+        );
+
+        return new ShellBacklog(null, policy, statistics);
+    }
+
+    private CommandMessage message(String text) {
+        CommandSender sender = new CommandSender(null, chat) {
+            @Override
+            public CommandSender getParent() {
+                return null;
+            }
+
+            @Override
+            public Conversation getConversation() {
+                return null;
+            }
+
+            @Override
+            public User getUser() {
+                return null;
+            }
+        };
+
+        return new CommandMessage(new BasicTextChatMessage(sender, text), sender);
+    }
+
+    private static boolean refused(ShellBacklog backlog, CommandMessage message) {
+        try {
+            backlog.offer(message);
+            return false;
+        } catch (IllegalStateException ex) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testReject() {
+        ShellBacklog backlog = backlog(1, ShellBacklogPolicy.Overflow.REJECT, 0L);
+
+        backlog.offer(message("ping"));
+        assertTrue(refused(backlog, message("ping")));
+
+        assertEquals(1L, statistics.getAccepted());
+        assertEquals(1L, statistics.getRejected());
+    }
+
+    @Test
+    public void testDropOldest() {
+        ShellBacklog backlog = backlog(1, ShellBacklogPolicy.Overflow.DROP_OLDEST, 0L);
+
+        AsyncCommand oldest = backlog.offer(message("first")).getCommand();
+        AsyncCommand newest = backlog.offer(message("second")).getCommand();
+
+        assertFalse(oldest.getFuture().join());
+        assertSame(newest, backlog.poll());
+        assertEquals(1L, statistics.getDropped());
+    }
+
+    @Test
+    public void testCoalesceDuplicates() {
+        ShellBacklog backlog = backlog(1, ShellBacklogPolicy.Overflow.COALESCE_DUPLICATES, 0L);
+
+        AsyncCommand queued = backlog.offer(message("ping")).getCommand();
+        ShellBacklog.Offer duplicate = backlog.offer(message("ping"));
+
+        assertTrue(duplicate.isCoalesced());
+        assertSame(queued, duplicate.getCommand());
+        assertTrue(refused(backlog, message("pong")));
+
+        // The merged caller's future follows the queued command, but cannot cancel it.
+        CompletableFuture<Boolean> coalesced = duplicate.getCoalescedFuture();
+        coalesced.cancel(true);
+        assertFalse(queued.getFuture().isDone());
+
+        CompletableFuture<Boolean> following = duplicate.getCoalescedFuture();
+        queued.getFuture().complete(true);
+        assertTrue(following.join());
+
+        assertEquals(1L, statistics.getCoalesced());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        ShellBacklog backlog = backlog(1, ShellBacklogPolicy.Overflow.BLOCK, 10_000L);
+        backlog.offer(message("first"));
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            backlog.poll();
+        });
+        consumer.start();
+
+        // Waits until the consumer makes room.
+        AsyncCommand second = backlog.offer(message("second")).getCommand();
+        consumer.join();
+
+        assertSame(second, backlog.poll());
+        assertEquals(1L, statistics.getBlocked());
+    }
+
+    @Test
+    public void testBlockTimeout() {
+        ShellBacklog backlog = backlog(1, ShellBacklogPolicy.Overflow.BLOCK, 10L);
+
+        backlog.offer(message("first"));
+        assertTrue(refused(backlog, message("second")));
+
+        assertEquals(1L, statistics.getBlocked());
+        assertEquals(1L, statistics.getRejected());
+    }
+}
@@ -0,0 +1,202 @@
+package io.manebot.command;
+
+import io.manebot.user.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class ShellLifecycleManagerTest {
+    private final ExecutorService creator = Executors.newCachedThreadPool();
+
+    private static User user(String name) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName": return name;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * Creates a shell that is open until closed, and idle while <i>idle</i> is set.
+     */
+    private static ManagedCommandShell shell(AtomicBoolean idle, AtomicBoolean closed) {
+        return (ManagedCommandShell) Proxy.newProxyInstance(
+                ManagedCommandShell.class.getClassLoader(),
+                new Class<?>[] { ManagedCommandShell.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen": return !closed.get();
+                        case "isIdle": return idle.get();
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "closeIfIdle":
+                            if (!idle.get()) return false;
+                            closed.set(true);
+                            return true;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    private static ManagedCommandShell shell() {
+        return shell(new AtomicBoolean(true), new AtomicBoolean(false));
+    }
+
+    @Test
+    public void testSingleCreation() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ShellLifecycleManager<ManagedCommandShell> manager = new ShellLifecycleManager<>(user -> {
+            created.incrementAndGet();
+            release.await();
+            return shell();
+        }, creator, 1, TimeUnit.MINUTES, 0);
+
+        User user = user("user");
+        List<Future<ManagedCommandShell>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i ++) requests.add(creator.submit(() -> manager.apply(user)));
+
+        Thread.sleep(50L);
+        release.countDown();
+
+        ManagedCommandShell shell = requests.get(0).get();
+        for (Future<ManagedCommandShell> request : requests) assertSame(shell, request.get());
+
+        assertEquals(1, created.get());
+        assertEquals(1, manager.getLive());
+
+        manager.close();
+    }
+
+    @Test
+    public void testReplaceStoppedShell() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        List<ManagedCommandShell> shells = new ArrayList<>(Arrays.asList(
+                shell(new AtomicBoolean(true), closed),
+                shell()
+        ));
+
+        ShellLifecycleManager<ManagedCommandShell> manager =
+                new ShellLifecycleManager<>(user -> shells.remove(0), creator, 1, TimeUnit.MINUTES, 0);
+
+        User user = user("user");
+        ManagedCommandShell first = manager.apply(user);
+
+        // The shell stopped on its own.
+        closed.set(true);
+
+        ManagedCommandShell second = manager.apply(user);
+        assertNotSame(first, second);
+        assertTrue(second.isOpen());
+        assertEquals(1, manager.getLive());
+
+        manager.close();
+    }
+
+    @Test
+    public void testCreationFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        ShellLifecycleManager<ManagedCommandShell> manager = new ShellLifecycleManager<>(user -> {
+            if (attempts.incrementAndGet() == 1) throw new IllegalStateException("could not start");
+            return shell();
+        }, creator, 1, TimeUnit.MINUTES, 0);
+
+        User user = user("user");
+
+        boolean failed = false;
+        try {
+            manager.apply(user);
+        } catch (IllegalStateException ex) {
+            failed = true;
+        }
+
+        // Failures are not cached; the next request tries again.
+        assertTrue(failed);
+        assertTrue(manager.apply(user).isOpen());
+        assertEquals(2, attempts.get());
+
+        manager.close();
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        AtomicBoolean idleClosed = new AtomicBoolean(false);
+        AtomicBoolean busyIdle = new AtomicBoolean(false), busyClosed = new AtomicBoolean(false);
+        AtomicBoolean recentClosed = new AtomicBoolean(false);
+
+        List<ManagedCommandShell> shells = new ArrayList<>(Arrays.asList(
+                shell(new AtomicBoolean(true), idleClosed),
+                shell(busyIdle, busyClosed),
+                shell(new AtomicBoolean(true), recentClosed)
+        ));
+
+        ShellLifecycleManager<ManagedCommandShell> manager =
+                new ShellLifecycleManager<>(user -> shells.remove(0), creator, 1, TimeUnit.SECONDS, 1);
+
+        manager.apply(user("idle"));
+        manager.apply(user("busy"));
+        Thread.sleep(10L);
+        manager.apply(user("recent"));
+
+        for (int i = 0; i < 100 && !idleClosed.get(); i ++) Thread.sleep(50L);
+
+        // Busy shells stay open, as does the most recently used shell, up to the warm size.
+        assertTrue(idleClosed.get());
+        assertFalse(busyClosed.get());
+        assertFalse(recentClosed.get());
+        assertEquals(2, manager.getLive());
+        assertEquals(1, manager.getIdle());
+
+        // The busy shell's commands finish.
+        busyIdle.set(true);
+        for (int i = 0; i < 100 && !busyClosed.get(); i ++) Thread.sleep(50L);
+
+        assertTrue(busyClosed.get());
+        assertFalse(recentClosed.get());
+        assertEquals(1, manager.getLive());
+
+        manager.close();
+    }
+
+    @Test
+    public void testPrestart() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+
+        ShellLifecycleManager<ManagedCommandShell> manager = new ShellLifecycleManager<>(user -> {
+            created.incrementAndGet();
+            return shell();
+        }, creator, 1, TimeUnit.MINUTES, 0);
+
+        User user = user("user");
+        manager.prestart(Arrays.asList(user, user("other")));
+
+        for (int i = 0; i < 100 && manager.getLive() < 2; i ++) Thread.sleep(10L);
+        assertEquals(2, manager.getLive());
+
+        manager.apply(user);
+        assertEquals(2, created.get());
+
+        manager.close();
+    }
+}
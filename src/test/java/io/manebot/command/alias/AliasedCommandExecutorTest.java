@@ -0,0 +1,164 @@
+package io.manebot.command.alias;
+
+import io.manebot.command.CommandManager;
+import io.manebot.command.CommandSender;
+import io.manebot.command.exception.CommandArgumentException;
+import io.manebot.command.executor.CommandExecutor;
+import io.manebot.database.model.CommandAlias;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+public class AliasedCommandExecutorTest {
+    private final Map<String, CommandExecutor> executors = new ConcurrentHashMap<>();
+    private Runnable onLookup = () -> {};
+
+    private final CommandManager commandManager = new CommandManager() {
+        @Override
+        public Registration registerExecutor(String label, CommandExecutor executor) {
+            executors.put(label, executor);
+            return null;
+        }
+
+        @Override
+        public void unregisterExecutor(String label) {
+            executors.remove(label);
+        }
+
+        @Override
+        public CommandExecutor getExecutor(String label) {
+            onLookup.run();
+            return executors.get(label);
+        }
+
+        @Override
+        public Collection<Registration> getRegistrations() {
+            return Collections.emptyList();
+        }
+    };
+
+    private AliasedCommandExecutor alias(String label, String alias) {
+        AliasedCommandExecutor executor = new AliasedCommandExecutor(commandManager, new CommandAlias(null, label, alias));
+        executors.put(label, executor);
+        return executor;
+    }
+
+    @Test
+    public void testChain() throws Exception {
+        RecordingExecutor ls = new RecordingExecutor();
+        executors.put("ls", ls);
+
+        alias("ll", "ls -l");
+        AliasedCommandExecutor lla = alias("lla", "ll -a");
+
+        lla.execute(null, "lla", new String[] { "home" });
+
+        assertArrayEquals(new String[] { "-l", "-a", "home" }, ls.arguments);
+        assertEquals("ll", lla.getTargetLabel());
+    }
+
+    @Test
+    public void testCycle() {
+        AliasedCommandExecutor a = alias("a", "b");
+        alias("b", "c");
+        alias("c", "a");
+
+        boolean refused = false;
+        try {
+            a.compile();
+        } catch (IllegalStateException ex) {
+            refused = true;
+        }
+
+        assertTrue(refused);
+    }
+
+    @Test
+    public void testMissingTarget() throws Exception {
+        AliasedCommandExecutor alias = alias("ll", "ls -l");
+
+        boolean refused = false;
+        try {
+            alias.execute(null, "ll", new String[0]);
+        } catch (CommandArgumentException ex) {
+            refused = true;
+        }
+
+        assertTrue(refused);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        RecordingExecutor first = new RecordingExecutor(), second = new RecordingExecutor();
+        executors.put("ls", first);
+
+        alias("ll", "ls -l");
+        AliasedCommandExecutor lla = alias("lla", "ll -a");
+        lla.compile();
+
+        executors.put("ls", second);
+
+        // Labels the chain does not run through leave it resolved.
+        lla.invalidate("help");
+        lla.execute(null, "lla", new String[0]);
+        assertEquals(1, first.executions);
+
+        lla.invalidate("ls");
+        lla.execute(null, "lla", new String[0]);
+        assertEquals(1, second.executions);
+    }
+
+    @Test
+    public void testInvalidateWhileCompiling() throws Exception {
+        RecordingExecutor first = new RecordingExecutor(), second = new RecordingExecutor();
+        executors.put("ls", first);
+
+        AliasedCommandExecutor ll = alias("ll", "ls -l");
+
+        // "ls" is re-registered after the chain looked it up, but before the chain was published.
+        onLookup = () -> {
+            onLookup = () -> {};
+            executors.put("ls", second);
+            ll.invalidate("ls");
+        };
+        ll.compile();
+        ll.execute(null, "ll", new String[0]);
+
+        assertEquals(0, first.executions);
+        assertEquals(1, second.executions);
+    }
+
+    private static final class RecordingExecutor implements CommandExecutor {
+        private int executions = 0;
+        private String[] arguments;
+
+        @Override
+        public void execute(CommandSender sender, String label, String[] args) {
+            executions ++;
+            arguments = args;
+        }
+
+        @Override
+        public String getDescription() {
+            return "";
+        }
+
+        @Override
+        public List<String> getHelp(CommandSender sender, String label, String[] args) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isBuffered() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.manebot.conversation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class ConversationCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Supplier<io.manebot.database.model.Conversation> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+    }
+
+    @Test
+    public void testSingleFlight() throws InterruptedException {
+        ConversationCache cache = new ConversationCache(16);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> cache.get("platform", "chat", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return null;
+        }));
+
+        first.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Everyone missing on the chat while it loads waits for the first load.
+        List<Thread> others = new ArrayList<>();
+        for (int i = 0; i < 4; i ++) {
+            Thread other = new Thread(() -> cache.get("platform", "chat", loader()));
+            other.start();
+            others.add(other);
+        }
+
+        Thread.sleep(50L);
+        release.countDown();
+
+        first.join(5_000L);
+        for (Thread other : others) other.join(5_000L);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testFailedLoad() {
+        ConversationCache cache = new ConversationCache(16);
+
+        boolean thrown = false;
+        try {
+            cache.get("platform", "chat", () -> {
+                throw new IllegalStateException("database is down");
+            });
+        } catch (IllegalStateException ex) {
+            thrown = true;
+        }
+
+        assertTrue(thrown);
+        assertEquals(0, cache.size());
+
+        // The next message tries again.
+        cache.get("platform", "chat", loader());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        ConversationCache cache = new ConversationCache(16);
+
+        cache.get("platform", "a", loader());
+        cache.get("platform", "b", loader());
+        cache.get("other", "a", loader());
+        cache.get("platform", "a", loader());
+        assertEquals(3, loads.get());
+
+        cache.invalidate("platform", "a");
+        cache.get("platform", "a", loader());
+        assertEquals(4, loads.get());
+
+        cache.invalidatePlatform("platform");
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        ConversationCache cache = new ConversationCache(4);
+
+        for (int i = 0; i < 10; i ++) cache.get("platform", Integer.toString(i), loader());
+
+        assertEquals(10, loads.get());
+        assertEquals(4, cache.size());
+    }
+}
@@ -0,0 +1,109 @@
+package io.manebot.event;
+
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class AsyncEventExecutorTest {
+
+    /**
+     * Occupies the executor's only thread until the returned latch is counted down.
+     */
+    private static CountDownLatch block(AsyncEventExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        started.await();
+        return release;
+    }
+
+    @Test
+    public void testCallerRuns() throws InterruptedException {
+        AsyncEventExecutor executor =
+                new AsyncEventExecutor(1, 1, AsyncEventExecutor.OverflowPolicy.CALLER_RUNS, false);
+        CountDownLatch release = block(executor);
+
+        executor.execute(() -> {});
+
+        AtomicReference<Thread> ran = new AtomicReference<>();
+        executor.execute(() -> ran.set(Thread.currentThread()));
+
+        assertEquals(Thread.currentThread(), ran.get());
+        assertEquals(1L, executor.getCallerRunsCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        AsyncEventExecutor executor =
+                new AsyncEventExecutor(1, 1, AsyncEventExecutor.OverflowPolicy.DROP_OLDEST, false);
+        CountDownLatch release = block(executor);
+
+        Future<?> oldest = executor.submit(() -> {});
+        Future<?> newest = executor.submit(() -> {});
+
+        assertTrue(oldest.isCancelled());
+        assertEquals(1L, executor.getDroppedCount());
+        assertEquals(1, executor.getQueueDepth());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(!newest.isCancelled());
+    }
+
+    @Test
+    public void testReject() throws InterruptedException {
+        AsyncEventExecutor executor =
+                new AsyncEventExecutor(1, 1, AsyncEventExecutor.OverflowPolicy.REJECT, false);
+        CountDownLatch release = block(executor);
+
+        executor.execute(() -> {});
+
+        boolean rejected = false;
+        try {
+            executor.execute(() -> {});
+        } catch (RejectedExecutionException ex) {
+            rejected = true;
+        }
+
+        assertTrue(rejected);
+        assertEquals(1L, executor.getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("threads", "2");
+        properties.setProperty("queue", "8");
+        properties.setProperty("overflow", "drop-oldest");
+
+        AsyncEventExecutor executor = AsyncEventExecutor.fromProperties(properties);
+
+        assertEquals(2, executor.getMaximumPoolSize());
+        assertEquals(8, executor.getQueueCapacity());
+        assertEquals(AsyncEventExecutor.OverflowPolicy.DROP_OLDEST, executor.getOverflowPolicy());
+
+        executor.shutdown();
+    }
+}
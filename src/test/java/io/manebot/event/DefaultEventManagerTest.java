@@ -2,8 +2,16 @@ package io.manebot.event;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 import static junit.framework.TestCase.assertEquals;
@@ -44,6 +52,190 @@ public class DefaultEventManagerTest {
         assertTrue(accepted[0]);
     }
 
+    @Test
+    public void testExecuteSupertypeListener() {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        TestEvent event = new TestEvent(this);
+        final int[] accepted = new int[1];
+
+        eventManager.registerListener(new EventListener() {
+            @EventHandler
+            public void onEvent(Event fired) {
+                accepted[0]++;
+                assertEquals(event, fired);
+            }
+        });
+
+        eventManager.execute(event);
+        eventManager.execute(event);
+        assertEquals(2, accepted[0]);
+    }
+
+    @Test
+    public void testExecuteAsyncPartitioned() throws ExecutionException, InterruptedException {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        List<TestEvent> received = Collections.synchronizedList(new ArrayList<>());
+        List<TestEvent> sent = new ArrayList<>();
+
+        eventManager.registerListener(new TestListener(received::add));
+
+        Future<TestEvent> last = null;
+        for (int i = 0; i < 10_000; i ++) {
+            TestEvent event = new TestEvent(this);
+            sent.add(event);
+            last = eventManager.executeAsync(event, "partition");
+        }
+
+        // Await the last event; every earlier event in its partition has been delivered before it
+        last.get();
+        assertEquals(sent, received);
+    }
+
+    @Test
+    public void testRegistrationDuringDispatch() throws InterruptedException {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        int dispatchers = 4;
+        int eventsPerDispatcher = 500_000;
+
+        LongAdder permanentCount = new LongAdder();
+        eventManager.registerListener(new TestListener(fired -> permanentCount.increment()));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Simulates plugins being enabled and disabled while events fire
+        Thread toggler = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    TestListener listener = new TestListener(fired -> { });
+                    eventManager.registerListener(listener);
+                    eventManager.unregisterListener(listener);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < dispatchers; i ++) {
+            threads.add(new Thread(() -> {
+                try {
+                    TestEvent event = new TestEvent(this);
+                    for (int n = 0; n < eventsPerDispatcher; n ++) eventManager.execute(event);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        toggler.start();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        running.set(false);
+        toggler.join();
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+
+        // The permanent listener must have seen every event exactly once
+        assertEquals((long) dispatchers * eventsPerDispatcher, permanentCount.sum());
+    }
+
+    @Test
+    public void testIsolation() {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        eventManager.setIsolation(new ListenerIsolation(0L, Collections.emptyMap(), 2, 60_000L));
+
+        final int[] failing = new int[1];
+        final int[] accepted = new int[1];
+
+        eventManager.registerListener(new TestListener(fired -> {
+            failing[0]++;
+            throw new IllegalStateException("failing listener");
+        }));
+        eventManager.registerListener(new TestListener(fired -> accepted[0]++));
+
+        for (int i = 0; i < 5; i ++) eventManager.execute(new TestEvent(this));
+
+        // The failing listener trips after two failures; delivery to the other listener is never interrupted
+        assertEquals(2, failing[0]);
+        assertEquals(5, accepted[0]);
+    }
+
+    @Test
+    public void testIsolationDeadlineAsync() throws Exception {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        eventManager.setIsolation(
+                new ListenerIsolation(50L, Collections.emptyMap(), 5, 60_000L),
+                Thread::new
+        );
+
+        CountDownLatch release = new CountDownLatch(1);
+        final int[] accepted = new int[1];
+
+        eventManager.registerListener(new TestListener(fired -> {
+            // Hangs without regard for interrupts, as a listener stuck in blocking I/O would
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+            }
+        }));
+        eventManager.registerListener(new TestListener(fired -> accepted[0]++));
+
+        // Delivered on an event thread, which is not a process and has no user
+        eventManager.executeAsync(new TestEvent(this)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, accepted[0]);
+        assertEquals(1L, eventManager.getListenerMetrics().stream().mapToLong(ListenerMetrics::getTimeouts).sum());
+
+        release.countDown();
+        eventManager.setIsolation(null);
+    }
+
+    @Test
+    public void testExecuteAsyncCoalesced() throws ExecutionException, InterruptedException {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        eventManager.registerCoalescing(TestEvent.class, event -> "key", 200, TimeUnit.MILLISECONDS);
+
+        LongAdder delivered = new LongAdder();
+        eventManager.registerListener(new TestListener(fired -> delivered.increment()));
+
+        List<Future<TestEvent>> futures = new ArrayList<>();
+        TestEvent last = null;
+        for (int i = 0; i < 1000; i ++) futures.add(eventManager.executeAsync(last = new TestEvent(this)));
+
+        // Every caller in the window sees the latest event of the burst delivered
+        for (Future<TestEvent> future : futures) future.get();
+        assertEquals(last, futures.get(0).get());
+        assertTrue(delivered.sum() < 1000);
+        assertTrue(eventManager.getCoalescedCount() > 0);
+    }
+
+    @Test
+    public void testExecuteAsyncCoalescedPartitionOrder() throws ExecutionException, InterruptedException {
+        DefaultEventManager eventManager = new DefaultEventManager();
+        TestEvent coalesced = new TestEvent(this);
+        TestEvent after = new TestEvent(this);
+
+        // A window far longer than the test: only the later event in the partition can close it
+        eventManager.registerCoalescing(TestEvent.class, event -> event == coalesced ? "key" : null,
+                1, TimeUnit.MINUTES);
+
+        List<TestEvent> received = Collections.synchronizedList(new ArrayList<>());
+        eventManager.registerListener(new TestListener(received::add));
+
+        Future<TestEvent> first = eventManager.executeAsync(coalesced, "partition");
+        eventManager.executeAsync(after, "partition").get();
+
+        assertEquals(coalesced, first.get());
+        assertEquals(2, received.size());
+        assertEquals(coalesced, received.get(0));
+        assertEquals(after, received.get(1));
+    }
+
     private static class TestListener implements EventListener {
         private final Consumer<TestEvent> eventConsumer;
 
@@ -0,0 +1,138 @@
+package io.manebot.user;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+
+public class BanIndexTest {
+    private final List<UserBan> current = new ArrayList<>();
+
+    private final UserManager userManager = (UserManager) Proxy.newProxyInstance(
+            UserManager.class.getClassLoader(),
+            new Class<?>[] { UserManager.class },
+            (proxy, method, args) -> method.getName().equals("getCurrentBans") ? new ArrayList<>(current) : null
+    );
+
+    private static User user(String name) {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName": return name;
+                        case "hashCode": return name.hashCode();
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * Creates a ban ending some time from now, which is pardoned once <i>pardoned</i> is set.
+     */
+    private static UserBan ban(User user, long endsIn, AtomicBoolean pardoned) {
+        Date end = new Date(System.currentTimeMillis() + endsIn);
+
+        return (UserBan) Proxy.newProxyInstance(UserBan.class.getClassLoader(), new Class<?>[] { UserBan.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUser": return user;
+                        case "getEnd": return end;
+                        case "isPardoned": return pardoned.get();
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    private static UserBan ban(User user, long endsIn) {
+        return ban(user, endsIn, new AtomicBoolean(false));
+    }
+
+    @Test
+    public void testReload() {
+        User alice = user("alice"), bob = user("bob"), carol = user("carol");
+
+        UserBan shorter = ban(alice, 60_000L);
+        UserBan longer = ban(alice, 120_000L);
+        UserBan bobs = ban(bob, 60_000L);
+        current.add(shorter);
+        current.add(longer);
+        current.add(bobs);
+        current.add(ban(carol, 60_000L, new AtomicBoolean(true)));
+
+        try (BanIndex index = new BanIndex(userManager)) {
+            index.reload();
+
+            // The ban ending last is the one in effect.
+            assertSame(longer, index.getBan(alice));
+            assertSame(bobs, index.getBan(bob));
+            assertNull(index.getBan(carol));
+            assertEquals(2, index.size());
+
+            current.remove(bobs);
+            index.reload();
+
+            assertNull(index.getBan(bob));
+            assertEquals(1, index.size());
+        }
+    }
+
+    @Test
+    public void testAdd() {
+        User alice = user("alice"), bob = user("bob");
+
+        try (BanIndex index = new BanIndex(userManager)) {
+            UserBan ban = ban(alice, 60_000L);
+            index.add(ban);
+            index.add(ban(bob, -1_000L));
+
+            assertSame(ban, index.getBan(alice));
+            assertNull(index.getBan(bob));
+            assertEquals(1, index.size());
+
+            index.remove(alice);
+            assertNull(index.getBan(alice));
+        }
+    }
+
+    @Test
+    public void testUpdate() {
+        User alice = user("alice");
+        AtomicBoolean pardoned = new AtomicBoolean(false);
+
+        try (BanIndex index = new BanIndex(userManager)) {
+            UserBan ban = ban(alice, 60_000L, pardoned);
+
+            index.update(ban);
+            assertSame(ban, index.getBan(alice));
+
+            pardoned.set(true);
+            index.update(ban);
+            assertNull(index.getBan(alice));
+            assertEquals(0, index.size());
+        }
+    }
+
+    @Test
+    public void testEnded() throws InterruptedException {
+        User alice = user("alice");
+
+        try (BanIndex index = new BanIndex(userManager)) {
+            index.add(ban(alice, 50L));
+            Thread.sleep(100L);
+
+            // Forgotten when checked, even before the wheel gets to it.
+            assertNull(index.getBan(alice));
+            assertEquals(0, index.size());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.manebot.user;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class LastSeenBufferTest {
+    private final List<Date> saved = new CopyOnWriteArrayList<>();
+
+    private User user() {
+        return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] { User.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setLastSeenDate":
+                            saved.add((Date) args[0]);
+                            return null;
+                        case "getName": return "user";
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testKeepsNewest() {
+        LastSeenBuffer buffer = new LastSeenBuffer(1, TimeUnit.HOURS, 100);
+        User user = user();
+
+        buffer.touch(user, new Date(2000L));
+        buffer.touch(user, new Date(3000L));
+        buffer.touch(user, new Date(1000L));
+        assertEquals(1, buffer.size());
+        assertEquals(0, saved.size());
+
+        buffer.flush();
+        assertEquals(1, saved.size());
+        assertEquals(new Date(3000L), saved.get(0));
+        assertEquals(0, buffer.size());
+
+        buffer.close();
+    }
+
+    @Test
+    public void testThreshold() throws InterruptedException {
+        LastSeenBuffer buffer = new LastSeenBuffer(1, TimeUnit.HOURS, 2);
+
+        buffer.touch(user(), new Date());
+        buffer.touch(user(), new Date());
+
+        for (int i = 0; i < 100 && saved.size() < 2; i ++) Thread.sleep(10L);
+        assertEquals(2, saved.size());
+
+        buffer.close();
+    }
+
+    @Test
+    public void testClose() {
+        LastSeenBuffer buffer = new LastSeenBuffer(1, TimeUnit.HOURS, 100);
+
+        buffer.touch(user(), new Date());
+        buffer.close();
+        assertEquals(1, saved.size());
+
+        // Written directly once closed.
+        buffer.touch(user(), new Date());
+        assertEquals(2, saved.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testCloseWhileTouching() throws InterruptedException {
+        LastSeenBuffer buffer = new LastSeenBuffer(1, TimeUnit.HOURS, Integer.MAX_VALUE);
+        int touches = 10_000;
+
+        Thread toucher = new Thread(() -> {
+            for (int i = 0; i < touches; i ++) buffer.touch(user(), new Date());
+        });
+        toucher.start();
+
+        Thread.sleep(1L);
+        buffer.close();
+        toucher.join();
+
+        // Every date is written, whether buffered before the final flush or written directly after it.
+        assertEquals(touches, saved.size());
+    }
+}
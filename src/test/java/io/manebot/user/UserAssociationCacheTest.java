@@ -0,0 +1,168 @@
+package io.manebot.user;
+
+import io.manebot.platform.Platform;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+
+public class UserAssociationCacheTest {
+    private final Map<String, UserAssociation> associations = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private Consumer<String> onLookup = id -> {};
+
+    private final Platform platform = (Platform) Proxy.newProxyInstance(
+            Platform.class.getClassLoader(),
+            new Class<?>[] { Platform.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getId":
+                        return "platform";
+                    case "getUserAssocation":
+                        lookups.incrementAndGet();
+                        UserAssociation found = associations.get(args[0]);
+                        onLookup.accept((String) args[0]);
+                        return found;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            }
+    );
+
+    private UserAssociation association(Platform platform, String id) {
+        return (UserAssociation) Proxy.newProxyInstance(
+                UserAssociation.class.getClassLoader(),
+                new Class<?>[] { UserAssociation.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPlatform":
+                            return platform;
+                        case "getPlatformId":
+                            return id;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testHit() {
+        UserAssociationCache cache = new UserAssociationCache(16, 1, 1, TimeUnit.MINUTES);
+        UserAssociation association = association(platform, "a");
+        associations.put("a", association);
+
+        assertSame(association, cache.getUserAssociation(platform, "a"));
+        assertSame(association, cache.getUserAssociation(platform, "a"));
+
+        assertEquals(1, lookups.get());
+        assertEquals(1L, cache.getHits());
+        assertEquals(1L, cache.getMisses());
+    }
+
+    @Test
+    public void testNegative() {
+        UserAssociationCache cache = new UserAssociationCache(16, 1, 1, TimeUnit.MINUTES);
+
+        assertNull(cache.getUserAssociation(platform, "unknown"));
+        assertNull(cache.getUserAssociation(platform, "unknown"));
+
+        assertEquals(1, lookups.get());
+        assertEquals(0L, cache.getHits());
+        assertEquals(1L, cache.getNegativeHits());
+
+        // Registering the user replaces the cached unknown.
+        UserAssociation association = association(platform, "unknown");
+        associations.put("unknown", association);
+        cache.invalidate(association);
+
+        assertSame(association, cache.getUserAssociation(platform, "unknown"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testNegativeDisabled() {
+        UserAssociationCache cache = new UserAssociationCache(16, 1, 0, TimeUnit.MINUTES);
+
+        assertNull(cache.getUserAssociation(platform, "unknown"));
+        assertNull(cache.getUserAssociation(platform, "unknown"));
+
+        assertEquals(2, lookups.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        UserAssociationCache cache = new UserAssociationCache(16, 20, 20, TimeUnit.MILLISECONDS);
+        associations.put("a", association(platform, "a"));
+
+        cache.getUserAssociation(platform, "a");
+        Thread.sleep(50L);
+        cache.getUserAssociation(platform, "a");
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        UserAssociationCache cache = new UserAssociationCache(16, 1, 1, TimeUnit.MINUTES);
+        UserAssociation association = association(platform, "a");
+        associations.put("a", association);
+
+        cache.getUserAssociation(platform, "a");
+        associations.remove("a");
+        cache.invalidate(association);
+
+        assertNull(cache.getUserAssociation(platform, "a"));
+        assertEquals(2, lookups.get());
+
+        // An association whose platform is not registered clears everything.
+        cache.invalidate(association(null, "a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidateDuringLookup() {
+        UserAssociationCache cache = new UserAssociationCache(16, 1, 1, TimeUnit.MINUTES);
+        UserAssociation association = association(platform, "a");
+
+        // The user registers while their lookup is reading the database, after it found nothing.
+        onLookup = id -> {
+            onLookup = other -> {};
+            cache.invalidate(platform, id);
+            associations.put(id, association);
+        };
+
+        assertNull(cache.getUserAssociation(platform, "a"));
+        assertEquals(0, cache.size());
+
+        assertSame(association, cache.getUserAssociation(platform, "a"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        UserAssociationCache cache = new UserAssociationCache(4, 1, 1, TimeUnit.MINUTES);
+
+        for (int i = 0; i < 10; i ++) cache.getUserAssociation(platform, Integer.toString(i));
+
+        assertEquals(4, cache.size());
+        assertEquals(6L, cache.getEvictions());
+    }
+}
@@ -0,0 +1,67 @@
+package io.manebot.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static void assertWithin(long expected, long actual, double error) {
+        assertTrue(
+                actual + " is not within " + (error * 100D) + "% of " + expected,
+                Math.abs(actual - expected) <= expected * error
+        );
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(50D, TimeUnit.NANOSECONDS));
+        assertEquals(0D, histogram.getMean(TimeUnit.NANOSECONDS), 0D);
+    }
+
+    @Test
+    public void testSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0L; value < 8L; value ++) histogram.record(value);
+        histogram.record(-5L);
+
+        // Values below the sub-bucket count are recorded exactly, and negative values as zero.
+        assertEquals(9L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(20D, TimeUnit.NANOSECONDS));
+        assertEquals(3L, histogram.getPercentile(50D, TimeUnit.NANOSECONDS));
+        assertEquals(7L, histogram.getPercentile(100D, TimeUnit.NANOSECONDS));
+        assertEquals(7L, histogram.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1L; micros <= 10_000L; micros ++) histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+
+        assertEquals(10_000L, histogram.getCount());
+        assertWithin(5_000L, histogram.getPercentile(50D, TimeUnit.MICROSECONDS), 0.125D);
+        assertWithin(9_000L, histogram.getPercentile(90D, TimeUnit.MICROSECONDS), 0.125D);
+        assertWithin(9_900L, histogram.getPercentile(99D, TimeUnit.MICROSECONDS), 0.125D);
+
+        // The highest percentile is capped at the recorded maximum.
+        assertEquals(10_000L, histogram.getPercentile(100D, TimeUnit.MICROSECONDS));
+        assertEquals(10L, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertWithin(5_000L, (long) histogram.getMean(TimeUnit.MICROSECONDS), 0.001D);
+    }
+
+    @Test
+    public void testLargeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        assertWithin(TimeUnit.HOURS.toNanos(1), histogram.getPercentile(50D, TimeUnit.NANOSECONDS), 0.125D);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100D, TimeUnit.NANOSECONDS));
+    }
+}
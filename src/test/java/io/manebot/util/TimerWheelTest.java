@@ -0,0 +1,72 @@
+package io.manebot.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testFire() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+
+        try (TimerWheel<Long> wheel = new TimerWheel<>("test", 10, TimeUnit.MILLISECONDS, 64, scheduled -> {
+            assertTrue(System.nanoTime() - scheduled >= TimeUnit.MILLISECONDS.toNanos(50));
+            fired.countDown();
+        })) {
+            wheel.schedule(System.nanoTime(), 50, TimeUnit.MILLISECONDS);
+            assertEquals(1, wheel.size());
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertEquals(0, wheel.size());
+        }
+    }
+
+    @Test
+    public void testRounds() throws InterruptedException {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        // A four-slot wheel: the later timeout goes around twice before it fires.
+        try (TimerWheel<String> wheel = new TimerWheel<>("test", 10, TimeUnit.MILLISECONDS, 4, value -> {
+            fired.add(value);
+            done.countDown();
+        })) {
+            wheel.schedule("later", 100, TimeUnit.MILLISECONDS);
+            wheel.schedule("sooner", 20, TimeUnit.MILLISECONDS);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals("sooner", fired.get(0));
+            assertEquals("later", fired.get(1));
+        }
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        try (TimerWheel<String> wheel = new TimerWheel<>("test", 10, TimeUnit.MILLISECONDS, 64, value -> {
+            fired.add(value);
+            done.countDown();
+        })) {
+            TimerWheel<String>.Timeout cancelled = wheel.schedule("cancelled", 20, TimeUnit.MILLISECONDS);
+            TimerWheel<String>.Timeout kept = wheel.schedule("kept", 50, TimeUnit.MILLISECONDS);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, fired.size());
+            assertEquals("kept", fired.get(0));
+            assertFalse(kept.cancel());
+        }
+    }
+}